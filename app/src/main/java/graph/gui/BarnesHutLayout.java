@@ -0,0 +1,364 @@
+package graph.gui;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/* Force directed layout (Fruchterman-Reingold forces and cooling) with Barnes-Hut repulsion.
+ *  Every vertex repels every other with force k^2 / d and edges pull their ends together with d^2 / k, where
+ *  k = sqrt(area / V). Exact repulsion is O(V^2) per iteration, so vertices are put in a quadtree instead and a
+ *  cell whose size / distance is under THETA pushes as one body of its total mass at its centre of mass, making
+ *  an iteration O(V log V + E). Each iteration moves a vertex at most the current temperature, which cools
+ *  linearly to 0 over maxIterations, so the layout settles instead of oscillating.
+ *  Positions are plain double arrays and nothing here touches Swing, so it can run on any one thread.
+ */
+final class BarnesHutLayout {
+    // Cells smaller than THETA times their distance count as one body. Higher is faster and less exact
+    static final double THETA = 0.8;
+    // Cells stop splitting below this half-size, and vertices landing on the same spot are nudged apart
+    private static final double MIN_HALF_SIZE = 1e-3;
+    private static final int EMPTY = -1;
+    // Passes of startFrom over the edges, each placing new vertices next to vertices placed by the one before
+    private static final int PLACEMENT_PASSES = 8;
+
+    private final int vertexNum;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final double[] x;
+    private final double[] y;
+    private final double[] dispX;
+    private final double[] dispY;
+    private final int maxIterations;
+    private final SplittableRandom random;
+    private double width;
+    private double height;
+    private int iteration = 0;
+
+    // Quadtree, rebuilt every iteration. Children of a cell are 4 consecutive cells from firstChild, and as they are
+    // always added after their parent, going through cells backwards visits children before parents
+    private int cellNum = 0;
+    private int[] firstChild = new int[0];
+    private int[] body = new int[0];
+    private double[] centreX = new double[0];
+    private double[] centreY = new double[0];
+    private double[] halfSize = new double[0];
+    private double[] mass = new double[0];
+    private double[] massX = new double[0];
+    private double[] massY = new double[0];
+    private int[] stack = new int[64];
+
+    /**
+     * Lays out vertices 0..vertexNum-1 in a width x height area, starting from random positions
+     * @param edgeFrom first end of each edge, edges pull both ends whatever their direction
+     * @param edgeTo second end of each edge
+     * @param maxIterations iterations until the layout is done
+     * @param seed seed of the starting positions
+     */
+    BarnesHutLayout(int vertexNum, int[] edgeFrom, int[] edgeTo, double width, double height, int maxIterations, long seed) {
+        if (edgeFrom.length != edgeTo.length) {
+            throw new IllegalArgumentException("edgeFrom and edgeTo must have one entry per edge");
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Layout area must be positive");
+        }
+        this.vertexNum = vertexNum;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.width = width;
+        this.height = height;
+        this.maxIterations = maxIterations;
+        random = new SplittableRandom(seed);
+        x = new double[vertexNum];
+        y = new double[vertexNum];
+        dispX = new double[vertexNum];
+        dispY = new double[vertexNum];
+        for (int v = 0; v < vertexNum; v++) {
+            x[v] = random.nextDouble() * width;
+            y[v] = random.nextDouble() * height;
+        }
+    }
+
+    /**
+     * Starts from known positions instead of random ones, keeping a layout recognisable after the graph is edited.
+     * Vertices without a position are put near their positioned neighbours, or stay random if they have none
+     * @param xs x of each vertex, NaN for vertices without a position
+     * @param ys y of each vertex
+     * @param firstIteration iteration to carry on from, later meaning cooler and so less movement
+     */
+    void startFrom(double[] xs, double[] ys, int firstIteration) {
+        boolean[] placed = new boolean[vertexNum];
+        for (int v = 0; v < vertexNum; v++) {
+            if (!Double.isNaN(xs[v])) {
+                x[v] = clamp(xs[v], width);
+                y[v] = clamp(ys[v], height);
+                placed[v] = true;
+            }
+        }
+        // Around the centre of placed neighbours, spread by up to half the natural edge length so they don't coincide
+        double spread = Math.sqrt(width * height / Math.max(vertexNum, 1)) / 2;
+        double[] sumX = new double[vertexNum];
+        double[] sumY = new double[vertexNum];
+        int[] count = new int[vertexNum];
+        for (int pass = 0; pass < PLACEMENT_PASSES; pass++) {
+            Arrays.fill(sumX, 0);
+            Arrays.fill(sumY, 0);
+            Arrays.fill(count, 0);
+            for (int e = 0; e < edgeFrom.length; e++) {
+                int u = edgeFrom[e];
+                int v = edgeTo[e];
+                if (placed[u] && !placed[v]) {
+                    sumX[v] += x[u];
+                    sumY[v] += y[u];
+                    count[v]++;
+                } else if (placed[v] && !placed[u]) {
+                    sumX[u] += x[v];
+                    sumY[u] += y[v];
+                    count[u]++;
+                }
+            }
+            boolean progress = false;
+            for (int v = 0; v < vertexNum; v++) {
+                if (count[v] > 0) {
+                    x[v] = clamp(sumX[v] / count[v] + (random.nextDouble() - 0.5) * spread, width);
+                    y[v] = clamp(sumY[v] / count[v] + (random.nextDouble() - 0.5) * spread, height);
+                    placed[v] = true;
+                    progress = true;
+                }
+            }
+            if (!progress) {
+                break;
+            }
+        }
+        iteration = Math.max(0, Math.min(firstIteration, maxIterations));
+    }
+
+    int getVertexNum() {
+        return vertexNum;
+    }
+
+    double getX(int v) {
+        return x[v];
+    }
+
+    double getY(int v) {
+        return y[v];
+    }
+
+    int getIteration() {
+        return iteration;
+    }
+
+    // Moves v, e.g. when dragged by the user. It keeps being pushed and pulled from there
+    void setPosition(int v, double newX, double newY) {
+        x[v] = clamp(newX, width);
+        y[v] = clamp(newY, height);
+    }
+
+    // Changes the area, scaling positions to fit it
+    void setSize(double newWidth, double newHeight) {
+        if (newWidth <= 0 || newHeight <= 0) {
+            throw new IllegalArgumentException("Layout area must be positive");
+        }
+        for (int v = 0; v < vertexNum; v++) {
+            x[v] *= newWidth / width;
+            y[v] *= newHeight / height;
+        }
+        width = newWidth;
+        height = newHeight;
+    }
+
+    boolean done() {
+        return iteration >= maxIterations;
+    }
+
+    // Copies positions into xs and ys, which must have room for every vertex
+    void copyPositions(double[] xs, double[] ys) {
+        System.arraycopy(x, 0, xs, 0, vertexNum);
+        System.arraycopy(y, 0, ys, 0, vertexNum);
+    }
+
+    // Runs one iteration: repulsion through the quadtree, attraction along edges, then capped moves
+    void step() {
+        if (done() || vertexNum == 0) {
+            iteration++;
+            return;
+        }
+        double k = Math.sqrt(width * height / vertexNum);
+        double kSquared = k * k;
+        // Linear cooling from a tenth of the area's width, as FRLayout does
+        double temperature = width / 10 * (1 - (double) iteration / maxIterations);
+        buildQuadtree();
+        for (int v = 0; v < vertexNum; v++) {
+            repel(v, kSquared);
+        }
+        for (int e = 0; e < edgeFrom.length; e++) {
+            int u = edgeFrom[e];
+            int v = edgeTo[e];
+            if (u == v) {
+                continue;
+            }
+            double dx = x[u] - x[v];
+            double dy = y[u] - y[v];
+            double d = Math.max(Math.sqrt(dx * dx + dy * dy), MIN_HALF_SIZE);
+            // d^2 / k along the edge, i.e. delta * d / k
+            double pull = d / k;
+            dispX[u] -= dx * pull;
+            dispY[u] -= dy * pull;
+            dispX[v] += dx * pull;
+            dispY[v] += dy * pull;
+        }
+        for (int v = 0; v < vertexNum; v++) {
+            double length = Math.sqrt(dispX[v] * dispX[v] + dispY[v] * dispY[v]);
+            if (length > 0) {
+                double scale = Math.min(length, temperature) / length;
+                x[v] = clamp(x[v] + dispX[v] * scale, width);
+                y[v] = clamp(y[v] + dispY[v] * scale, height);
+            }
+        }
+        iteration++;
+    }
+
+    // Sets dispX/dispY of v to its repulsion from every other vertex, approximated by quadtree cells
+    private void repel(int v, double kSquared) {
+        double fx = 0;
+        double fy = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            if (mass[cell] == 0 || body[cell] == v) {
+                continue;
+            }
+            double dx = x[v] - massX[cell];
+            double dy = y[v] - massY[cell];
+            double distSquared = Math.max(dx * dx + dy * dy, MIN_HALF_SIZE * MIN_HALF_SIZE);
+            double size = 2 * halfSize[cell];
+            // A cell holding v itself is always opened, however far its centre of mass is
+            boolean holdsV = Math.abs(x[v] - centreX[cell]) <= halfSize[cell] && Math.abs(y[v] - centreY[cell]) <= halfSize[cell];
+            if (firstChild[cell] == EMPTY || (!holdsV && size * size < THETA * THETA * distSquared)) {
+                // k^2 / d away from the body, i.e. delta * k^2 / d^2, times the number of vertices it stands for
+                double push = mass[cell] * kSquared / distSquared;
+                fx += dx * push;
+                fy += dy * push;
+            } else {
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                for (int c = firstChild[cell]; c < firstChild[cell] + 4; c++) {
+                    stack[top++] = c;
+                }
+            }
+        }
+        dispX[v] = fx;
+        dispY[v] = fy;
+    }
+
+    // Puts every vertex in its own leaf, then sums mass and centre of mass from the leaves up
+    private void buildQuadtree() {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int v = 0; v < vertexNum; v++) {
+            minX = Math.min(minX, x[v]);
+            minY = Math.min(minY, y[v]);
+            maxX = Math.max(maxX, x[v]);
+            maxY = Math.max(maxY, y[v]);
+        }
+        cellNum = 0;
+        // About 2 cells per vertex is typical, more when vertices bunch up
+        ensureCells(2 * vertexNum + 1);
+        int root = addCell((minX + maxX) / 2, (minY + maxY) / 2, Math.max(Math.max(maxX - minX, maxY - minY) / 2, MIN_HALF_SIZE));
+        for (int v = 0; v < vertexNum; v++) {
+            insert(root, v);
+        }
+        for (int cell = cellNum - 1; cell >= 0; cell--) {
+            if (firstChild[cell] == EMPTY) {
+                int b = body[cell];
+                mass[cell] = b == EMPTY ? 0 : 1;
+                massX[cell] = b == EMPTY ? 0 : x[b];
+                massY[cell] = b == EMPTY ? 0 : y[b];
+            } else {
+                double m = 0;
+                double sumX = 0;
+                double sumY = 0;
+                for (int c = firstChild[cell]; c < firstChild[cell] + 4; c++) {
+                    m += mass[c];
+                    sumX += mass[c] * massX[c];
+                    sumY += mass[c] * massY[c];
+                }
+                mass[cell] = m;
+                massX[cell] = m == 0 ? 0 : sumX / m;
+                massY[cell] = m == 0 ? 0 : sumY / m;
+            }
+        }
+    }
+
+    private void insert(int root, int v) {
+        int cell = root;
+        while (true) {
+            if (firstChild[cell] == EMPTY) {
+                if (body[cell] == EMPTY) {
+                    body[cell] = v;
+                    return;
+                }
+                if (halfSize[cell] < MIN_HALF_SIZE) {
+                    // Same spot as another vertex: nudge v and start again, as no split would separate them
+                    x[v] = clamp(x[v] + (random.nextDouble() - 0.5) * MIN_HALF_SIZE * 16, width);
+                    y[v] = clamp(y[v] + (random.nextDouble() - 0.5) * MIN_HALF_SIZE * 16, height);
+                    cell = root;
+                    continue;
+                }
+                int moved = body[cell];
+                body[cell] = EMPTY;
+                split(cell);
+                body[firstChild[cell] + quadrant(cell, x[moved], y[moved])] = moved;
+            }
+            cell = firstChild[cell] + quadrant(cell, x[v], y[v]);
+        }
+    }
+
+    // Quadrant 0 to 3 of cell holding point (px, py): bit 0 set if right of centre, bit 1 if below
+    private int quadrant(int cell, double px, double py) {
+        return (px >= centreX[cell] ? 1 : 0) | (py >= centreY[cell] ? 2 : 0);
+    }
+
+    private void split(int cell) {
+        ensureCells(cellNum + 4);
+        double quarter = halfSize[cell] / 2;
+        // Children must be allocated before firstChild is read again, as ensureCells may replace the arrays
+        int first = addCell(centreX[cell] - quarter, centreY[cell] - quarter, quarter);
+        addCell(centreX[cell] + quarter, centreY[cell] - quarter, quarter);
+        addCell(centreX[cell] - quarter, centreY[cell] + quarter, quarter);
+        addCell(centreX[cell] + quarter, centreY[cell] + quarter, quarter);
+        firstChild[cell] = first;
+    }
+
+    private int addCell(double cx, double cy, double half) {
+        int cell = cellNum++;
+        firstChild[cell] = EMPTY;
+        body[cell] = EMPTY;
+        centreX[cell] = cx;
+        centreY[cell] = cy;
+        halfSize[cell] = half;
+        return cell;
+    }
+
+    private void ensureCells(int capacity) {
+        if (capacity <= firstChild.length) {
+            return;
+        }
+        int newLength = Math.max(capacity, firstChild.length * 2);
+        firstChild = Arrays.copyOf(firstChild, newLength);
+        body = Arrays.copyOf(body, newLength);
+        centreX = Arrays.copyOf(centreX, newLength);
+        centreY = Arrays.copyOf(centreY, newLength);
+        halfSize = Arrays.copyOf(halfSize, newLength);
+        mass = Arrays.copyOf(mass, newLength);
+        massX = Arrays.copyOf(massX, newLength);
+        massY = Arrays.copyOf(massY, newLength);
+    }
+
+    private static double clamp(double value, double max) {
+        return Math.max(0, Math.min(max, value));
+    }
+}
@@ -0,0 +1,68 @@
+package graph.gui;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import com.google.common.collect.ImmutableBiMap;
+
+// Vertex dictionary for any name type, backed by a Guava BiMap
+final class BiMapVertexDictionary<T> implements VertexDictionary<T> {
+    private final BiMap<T, Integer> vertexMap;
+
+    BiMapVertexDictionary() {
+        this(HashBiMap.create());
+    }
+
+    BiMapVertexDictionary(BiMap<T, Integer> vertexMap) {
+        this.vertexMap = vertexMap;
+    }
+
+    // Copies names of another dictionary, keeping their ids
+    static <T> BiMapVertexDictionary<T> copyOf(VertexDictionary<T> dictionary) {
+        BiMap<T, Integer> vertexMap = HashBiMap.create(dictionary.size());
+        for (int id = 0; id < dictionary.size(); id++) {
+            vertexMap.put(dictionary.nameOf(id), id);
+        }
+        return new BiMapVertexDictionary<>(vertexMap);
+    }
+
+    @Override
+    public int size() {
+        return vertexMap.size();
+    }
+
+    @Override
+    public int idOf(T node) {
+        Integer id = vertexMap.get(node);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public T nameOf(int id) {
+        return vertexMap.inverse().get(id);
+    }
+
+    @Override
+    public int add(T node) {
+        int id = vertexMap.size();
+        vertexMap.put(node, id);
+        return id;
+    }
+
+    @Override
+    public Map<T, Integer> asMap() {
+        return Collections.unmodifiableMap(vertexMap);
+    }
+
+    @Override
+    public Map<Integer, T> asInverseMap() {
+        return Collections.unmodifiableMap(vertexMap.inverse());
+    }
+
+    @Override
+    public VertexDictionary<T> frozenCopy() {
+        return new BiMapVertexDictionary<>(ImmutableBiMap.copyOf(vertexMap));
+    }
+}
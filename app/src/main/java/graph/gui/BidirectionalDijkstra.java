@@ -0,0 +1,145 @@
+package graph.gui;
+
+/* Point to point shortest path by running Dijkstra forwards from the source and backwards
+ *  (over the reverse graph) from the target at the same time.
+ *  Stops once the smallest keys of both queues add up to at least the best path seen, so only vertices
+ *  roughly within half the distance from either end are settled. Runs on a BidirectionalScratch, reset by
+ *  walking the vertices the last search touched, so a query costs O(vertices touched) rather than O(V).
+ *  Weights are assumed to be non-negative. Not thread-safe, get one per query with forThread.
+ */
+final class BidirectionalDijkstra {
+    private final BidirectionalScratch scratch;
+    private int meetingVertex = -1;
+    // Work done by the current run, added to its QueryStats at the end
+    private long pops = 0;
+    private long pushes = 0;
+    private long relaxed = 0;
+
+    private BidirectionalDijkstra(BidirectionalScratch scratch) {
+        this.scratch = scratch;
+    }
+
+    // Search on this thread's shared scratch, valid until the thread runs its next bidirectional search
+    static BidirectionalDijkstra forThread(int vertexNum) {
+        return new BidirectionalDijkstra(BidirectionalScratch.forThread(vertexNum));
+    }
+
+    /**
+     * Finds length of shortest path from source to target
+     * @param graph graph to search
+     * @param source source vertex id
+     * @param target target vertex id
+     * @return distance, or Dijkstra.UNREACHABLE if there is no path
+     */
+    long run(CsrGraph graph, int source, int target) {
+        return run(graph, source, target, QueryStats.DISABLED);
+    }
+
+    // Same as run, adding the work done to stats
+    long run(CsrGraph graph, int source, int target, QueryStats stats) {
+        if (graph.vertexNum > scratch.capacity()) {
+            throw new IllegalArgumentException("Graph has more vertices than BidirectionalDijkstra was sized for");
+        }
+        reset();
+        CsrGraph reverse = graph.reverse();
+        IndexedDaryHeap forwardHeap = scratch.forwardHeap;
+        IndexedDaryHeap backwardHeap = scratch.backwardHeap;
+        scratch.touch(source);
+        scratch.touch(target);
+        scratch.forwardDist[source] = 0;
+        scratch.backwardDist[target] = 0;
+        forwardHeap.insertOrDecrease(source, 0);
+        backwardHeap.insertOrDecrease(target, 0);
+        pushes = 2;
+        long best = source == target ? 0 : Dijkstra.UNREACHABLE;
+        meetingVertex = source == target ? source : -1;
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+            if (forwardHeap.minKey() + backwardHeap.minKey() >= best) {
+                break;
+            }
+            // Expand the side with the smaller frontier to keep both searches balanced
+            if (forwardHeap.size() <= backwardHeap.size()) {
+                best = settle(graph, forwardHeap, scratch.forwardDist, scratch.forwardParent, scratch.backwardDist, best);
+            } else {
+                best = settle(reverse, backwardHeap, scratch.backwardDist, scratch.backwardParent, scratch.forwardDist, best);
+            }
+            if ((pops & (QueryProgress.REPORT_INTERVAL - 1)) == 0) {
+                stats.reportWork(QueryProgress.REPORT_INTERVAL);
+            }
+        }
+        stats.reportWork(pops & (QueryProgress.REPORT_INTERVAL - 1));
+        stats.addSearch(pops, relaxed, pushes, pops);
+        return best;
+    }
+
+    // Bytes of scratch used by an instance sized for vertexNum vertices
+    static long scratchBytes(int vertexNum) {
+        return BidirectionalScratch.bytesFor(vertexNum);
+    }
+
+    // Returns vertex ids on the path found by the last run (source first), or empty array if none
+    int[] path() {
+        int[] forwardParent = scratch.forwardParent;
+        int[] backwardParent = scratch.backwardParent;
+        if (meetingVertex == -1) {
+            return new int[0];
+        }
+        int length = 0;
+        for (int v = meetingVertex; v != -1; v = forwardParent[v]) {
+            length++;
+        }
+        for (int v = backwardParent[meetingVertex]; v != -1; v = backwardParent[v]) {
+            length++;
+        }
+        int[] res = new int[length];
+        int i = 0;
+        for (int v = meetingVertex; v != -1; v = forwardParent[v]) {
+            res[i++] = v;
+        }
+        // Forward half was collected target-side first
+        for (int l = 0, r = i - 1; l < r; l++, r--) {
+            int tmp = res[l];
+            res[l] = res[r];
+            res[r] = tmp;
+        }
+        for (int v = backwardParent[meetingVertex]; v != -1; v = backwardParent[v]) {
+            res[i++] = v;
+        }
+        return res;
+    }
+
+    // Pops one vertex from heap and relaxes its edges, returning the updated best path length
+    private long settle(CsrGraph graph, IndexedDaryHeap heap, long[] dist, int[] parent, long[] otherDist, long best) {
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        int[] weights = graph.weights;
+        int currNodeId = heap.pop();
+        pops++;
+        long currDist = dist[currNodeId];
+        relaxed += offsets[currNodeId + 1] - offsets[currNodeId];
+        for (int e = offsets[currNodeId]; e < offsets[currNodeId + 1]; e++) {
+            int neighbourId = targets[e];
+            long newDist = currDist + weights[e];
+            if (newDist < dist[neighbourId]) {
+                scratch.touch(neighbourId);
+                dist[neighbourId] = newDist;
+                parent[neighbourId] = currNodeId;
+                heap.insertOrDecrease(neighbourId, newDist);
+                pushes++;
+            }
+            if (otherDist[neighbourId] != Dijkstra.UNREACHABLE && dist[neighbourId] + otherDist[neighbourId] < best) {
+                best = dist[neighbourId] + otherDist[neighbourId];
+                meetingVertex = neighbourId;
+            }
+        }
+        return best;
+    }
+
+    private void reset() {
+        scratch.reset();
+        meetingVertex = -1;
+        pops = 0;
+        pushes = 0;
+        relaxed = 0;
+    }
+}
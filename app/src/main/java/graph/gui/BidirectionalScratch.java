@@ -0,0 +1,79 @@
+package graph.gui;
+
+import java.util.Arrays;
+
+/* Scratch of a search run from both ends at once: a heap, distances and parents for each side, and the
+ *  vertices touched since the last reset, so resetting costs O(vertices touched) rather than O(V).
+ *  Each thread keeps one (see forThread) that every graph, snapshot and contraction hierarchy shares, grown
+ *  when a bigger graph comes along. So reader threads hold one scratch each however many snapshots they
+ *  query, instead of one per snapshot version. A search's results are read before the thread's next search.
+ */
+final class BidirectionalScratch {
+    private static final ThreadLocal<BidirectionalScratch> PER_THREAD = new ThreadLocal<>();
+
+    final IndexedDaryHeap forwardHeap;
+    final IndexedDaryHeap backwardHeap;
+    final long[] forwardDist;
+    final long[] backwardDist;
+    final int[] forwardParent;
+    final int[] backwardParent;
+    private final int[] touched;
+    private final boolean[] isTouched;
+    private int touchedNum = 0;
+
+    BidirectionalScratch(int vertexNum) {
+        forwardHeap = new IndexedDaryHeap(vertexNum);
+        backwardHeap = new IndexedDaryHeap(vertexNum);
+        forwardDist = new long[vertexNum];
+        backwardDist = new long[vertexNum];
+        Arrays.fill(forwardDist, Dijkstra.UNREACHABLE);
+        Arrays.fill(backwardDist, Dijkstra.UNREACHABLE);
+        forwardParent = new int[vertexNum];
+        backwardParent = new int[vertexNum];
+        touched = new int[vertexNum];
+        isTouched = new boolean[vertexNum];
+    }
+
+    // Returns this thread's scratch, reset and big enough for vertexNum vertices
+    static BidirectionalScratch forThread(int vertexNum) {
+        BidirectionalScratch scratch = PER_THREAD.get();
+        if (scratch == null || scratch.capacity() < vertexNum) {
+            scratch = new BidirectionalScratch(vertexNum);
+            PER_THREAD.set(scratch);
+        } else {
+            scratch.reset();
+        }
+        return scratch;
+    }
+
+    // Bytes used by a scratch sized for vertexNum vertices
+    static long bytesFor(int vertexNum) {
+        return 2 * IndexedDaryHeap.bytesFor(vertexNum) + 29L * vertexNum;
+    }
+
+    int capacity() {
+        return touched.length;
+    }
+
+    // Marks v as reached, clearing its parents the first time since the last reset
+    void touch(int v) {
+        if (!isTouched[v]) {
+            isTouched[v] = true;
+            touched[touchedNum++] = v;
+            forwardParent[v] = -1;
+            backwardParent[v] = -1;
+        }
+    }
+
+    void reset() {
+        for (int i = 0; i < touchedNum; i++) {
+            int v = touched[i];
+            isTouched[v] = false;
+            forwardDist[v] = Dijkstra.UNREACHABLE;
+            backwardDist[v] = Dijkstra.UNREACHABLE;
+        }
+        touchedNum = 0;
+        forwardHeap.clear();
+        backwardHeap.clear();
+    }
+}
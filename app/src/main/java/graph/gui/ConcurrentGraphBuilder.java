@@ -0,0 +1,368 @@
+package graph.gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/* Builds a GraphSnapshot from edges fed by many threads at once, for loading large edge lists.
+ *  Vertex names are interned in a ConcurrentHashMap (locks per bin, lock-free reads) that hands out dense ids
+ *  from an AtomicInteger. Each feeding thread adds edges through its own Feeder, which buffers them, so adding
+ *  an edge never touches shared state apart from the name lookup. build() then counts out-degrees, scatters
+ *  every buffer into CSR slots through atomic per-vertex cursors, and puts each vertex's edges back in the
+ *  order they were added, all on the fork-join pool. Ids depend on the order threads intern names in, so they
+ *  differ between runs.
+ *  Edges count as added feeder by feeder (in the order feeders were made), each in the order it was given them.
+ *  As in every other builder, each vertex's edges keep that order and of duplicate edges only the first is kept.
+ *  A builder builds once: build() hands its buffers and names over to the snapshot and keeps nothing.
+ */
+public final class ConcurrentGraphBuilder<T> {
+    // Edges handled by one leaf task before splitting stops
+    private static final int EDGES_PER_TASK = 1 << 16;
+
+    private final Supplier<DirectedWeightedGraph<T>> graphFactory;
+    private final Supplier<VertexDictionary<T>> dictionaryFactory;
+    private final Map<T, Integer> vertexIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    // In the order they were made, guarded by this
+    private final List<Feeder> feeders = new ArrayList<>();
+    private volatile boolean built = false;
+
+    /**
+     * @param graphFactory makes empty graphs of the type algorithm results should be returned as, e.g. DirectedStringGraph::new
+     */
+    public ConcurrentGraphBuilder(Supplier<DirectedWeightedGraph<T>> graphFactory) {
+        this(graphFactory, BiMapVertexDictionary::new);
+    }
+
+    // dictionaryFactory makes the empty name table the snapshot's names are moved into
+    ConcurrentGraphBuilder(Supplier<DirectedWeightedGraph<T>> graphFactory, Supplier<VertexDictionary<T>> dictionaryFactory) {
+        this.graphFactory = graphFactory;
+        this.dictionaryFactory = dictionaryFactory;
+    }
+
+    // Builder of DirectedStringGraph snapshots, whose names are kept without an entry object per vertex
+    public static ConcurrentGraphBuilder<String> forStrings() {
+        return new ConcurrentGraphBuilder<>(DirectedStringGraph::new, StringVertexDictionary::new);
+    }
+
+    // Builder of DirectedIntGraph snapshots, which need no name table while the vertices are exactly 0..n-1
+    public static ConcurrentGraphBuilder<Integer> forIntegers() {
+        return new ConcurrentGraphBuilder<>(DirectedIntGraph::new, () -> new DenseIntVertexDictionary(0));
+    }
+
+    // Returns id of node, adding it if it's new. Safe to call from any thread
+    public int addNode(T node) {
+        checkNotBuilt();
+        Integer id = vertexIds.get(node);
+        if (id != null) {
+            return id;
+        }
+        return vertexIds.computeIfAbsent(node, k -> nextId.getAndIncrement());
+    }
+
+    /**
+     * Makes a handle for adding edges from one thread. Edges of feeders made earlier count as added before this
+     * one's, so make feeders in the order their edges should win duplicates. Safe to call from any thread
+     * @return new feeder, to be used by one thread at a time
+     */
+    public synchronized Feeder feeder() {
+        checkNotBuilt();
+        Feeder feeder = new Feeder();
+        feeders.add(feeder);
+        return feeder;
+    }
+
+    public int getLength() {
+        return nextId.get();
+    }
+
+    /**
+     * Packs every node and edge added so far into a snapshot. Threads adding edges must have finished (e.g. joined
+     * or their executor awaited) before this is called, otherwise their last edges may be missed.
+     * Can only be called once, and no nodes or edges can be added afterwards
+     * @return immutable graph of all nodes and edges
+     */
+    public GraphSnapshot<T> build() {
+        EdgeBuffer[] parts;
+        synchronized (this) {
+            checkNotBuilt();
+            built = true;
+            // Feeders may outlive the builder, so they give up their buffers here
+            parts = new EdgeBuffer[feeders.size()];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = feeders.get(i).buffer;
+                feeders.get(i).buffer = null;
+            }
+            feeders.clear();
+        }
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int vertexNum = nextId.get();
+        long totalEdges = 0;
+        for (EdgeBuffer part : parts) {
+            part.base = (int) Math.min(totalEdges, Integer.MAX_VALUE);
+            totalEdges += part.size;
+        }
+        if (totalEdges > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Graph has too many edges for int edge indices");
+        }
+        int edgeNum = (int) totalEdges;
+
+        AtomicIntegerArray degrees = new AtomicIntegerArray(vertexNum);
+        pool.invoke(new BufferTask(parts, 0, parts.length, (part, from, to) -> {
+            for (int i = from; i < to; i++) {
+                degrees.getAndIncrement(part.from[i]);
+            }
+        }));
+        int[] offsets = new int[vertexNum + 1];
+        for (int v = 0; v < vertexNum; v++) {
+            offsets[v + 1] = offsets[v] + degrees.get(v);
+        }
+
+        // Reuse degrees as the next free slot of each vertex. Slots are taken in no particular order, so each
+        // edge also records its position in the order edges were added
+        for (int v = 0; v < vertexNum; v++) {
+            degrees.set(v, offsets[v]);
+        }
+        int[] targets = new int[edgeNum];
+        int[] weights = new int[edgeNum];
+        int[] positions = new int[edgeNum];
+        pool.invoke(new BufferTask(parts, 0, parts.length, (part, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int slot = degrees.getAndIncrement(part.from[i]);
+                targets[slot] = part.to[i];
+                weights[slot] = part.weight[i];
+                positions[slot] = part.base + i;
+            }
+        }));
+        // Every edge is in the CSR arrays now, so the buffers can be collected while they are sorted
+        Arrays.fill(parts, null);
+
+        // Put each vertex's edges back in the order they were added, then drop duplicates if there were any
+        int[] uniqueDegrees = new int[vertexNum];
+        pool.invoke(new SortTask(offsets, targets, weights, positions, uniqueDegrees, 0, vertexNum));
+        int[] uniqueOffsets = new int[vertexNum + 1];
+        for (int v = 0; v < vertexNum; v++) {
+            uniqueOffsets[v + 1] = uniqueOffsets[v] + uniqueDegrees[v];
+        }
+        CsrGraph graph;
+        if (uniqueOffsets[vertexNum] == edgeNum) {
+            graph = new CsrGraph(vertexNum, offsets, targets, weights);
+        } else {
+            int[] uniqueTargets = new int[uniqueOffsets[vertexNum]];
+            int[] uniqueWeights = new int[uniqueOffsets[vertexNum]];
+            for (int v = 0; v < vertexNum; v++) {
+                System.arraycopy(targets, offsets[v], uniqueTargets, uniqueOffsets[v], uniqueDegrees[v]);
+                System.arraycopy(weights, offsets[v], uniqueWeights, uniqueOffsets[v], uniqueDegrees[v]);
+            }
+            graph = new CsrGraph(vertexNum, uniqueOffsets, uniqueTargets, uniqueWeights);
+        }
+
+        graph.commitBuild(event, "concurrent builder");
+        return new GraphSnapshot<>(0, graph, buildVertexDictionary(vertexNum), graphFactory);
+    }
+
+    // Moves the interned names into a dictionary from dictionaryFactory (e.g. a StringVertexDictionary), so the
+    // snapshot doesn't keep a boxed entry per vertex. Nothing adds to it afterwards
+    @SuppressWarnings("unchecked")
+    private VertexDictionary<T> buildVertexDictionary(int vertexNum) {
+        Object[] byId = new Object[vertexNum];
+        for (Map.Entry<T, Integer> entry : vertexIds.entrySet()) {
+            byId[entry.getValue()] = entry.getKey();
+        }
+        vertexIds.clear();
+        VertexDictionary<T> names = dictionaryFactory.get();
+        for (int id = 0; id < vertexNum; id++) {
+            T node = (T) byId[id];
+            if (names.add(node) < 0) {
+                names = BiMapVertexDictionary.copyOf(names);
+                names.add(node);
+            }
+        }
+        return names;
+    }
+
+    private void checkNotBuilt() {
+        if (built) {
+            throw new IllegalStateException("Graph was already built");
+        }
+    }
+
+    // Adds edges for one thread at a time into its own buffer, which build() takes over
+    public final class Feeder {
+        private EdgeBuffer buffer = new EdgeBuffer();
+
+        private Feeder() {
+        }
+
+        public void addEdge(T from, T to, int weight) {
+            int fromId = addNode(from);
+            int toId = addNode(to);
+            buffer.add(fromId, toId, weight);
+        }
+
+        // Same input format as the DirectedWeightedGraph constructors
+        public void addEdges(List<T[]> edges, List<Integer> weights) {
+            for (int i = 0; i < edges.size(); i++) {
+                addEdge(edges.get(i)[0], edges.get(i)[1], weights.get(i));
+            }
+        }
+    }
+
+    // Edges added through one feeder, only ever written by the thread using it
+    private static final class EdgeBuffer {
+        int[] from = new int[64];
+        int[] to = new int[64];
+        int[] weight = new int[64];
+        int size = 0;
+        // Position of this buffer's first edge in the order edges were added, set by build()
+        int base = 0;
+
+        void add(int fromId, int toId, int edgeWeight) {
+            if (size == from.length) {
+                int capacity = size * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+            }
+            from[size] = fromId;
+            to[size] = toId;
+            weight[size] = edgeWeight;
+            size++;
+        }
+    }
+
+    private interface BufferVisitor {
+        void visit(EdgeBuffer part, int from, int to);
+    }
+
+    // Runs visitor over every buffer in parts[from..to), splitting large buffers into ranges
+    private static final class BufferTask extends RecursiveAction {
+        private final EdgeBuffer[] parts;
+        private final int from;
+        private final int to;
+        private final BufferVisitor visitor;
+
+        BufferTask(EdgeBuffer[] parts, int from, int to, BufferVisitor visitor) {
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BufferTask(parts, from, mid, visitor), new BufferTask(parts, mid, to, visitor));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            EdgeBuffer part = parts[from];
+            RecursiveAction[] ranges = new RecursiveAction[(part.size + EDGES_PER_TASK - 1) / EDGES_PER_TASK];
+            for (int i = 0; i < ranges.length; i++) {
+                int start = i * EDGES_PER_TASK;
+                int end = Math.min(part.size, start + EDGES_PER_TASK);
+                ranges[i] = new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        visitor.visit(part, start, end);
+                    }
+                };
+            }
+            invokeAll(ranges);
+        }
+    }
+
+    // Puts edges of vertices [from..to) back in the order they were added, moves the first edge to each target to
+    // the front of each vertex's range (keeping that order) and records how many there are
+    private static final class SortTask extends RecursiveAction {
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] weights;
+        private final int[] positions;
+        private final int[] uniqueDegrees;
+        private final int from;
+        private final int to;
+
+        SortTask(int[] offsets, int[] targets, int[] weights, int[] positions, int[] uniqueDegrees, int from, int to) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.positions = positions;
+            this.uniqueDegrees = uniqueDegrees;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && offsets[to] - offsets[from] > EDGES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SortTask(offsets, targets, weights, positions, uniqueDegrees, from, mid),
+                    new SortTask(offsets, targets, weights, positions, uniqueDegrees, mid, to));
+                return;
+            }
+            long[] packed = new long[16];
+            int[] sliceTargets = new int[16];
+            int[] sliceWeights = new int[16];
+            boolean[] first = new boolean[16];
+            for (int v = from; v < to; v++) {
+                int start = offsets[v];
+                int degree = offsets[v + 1] - start;
+                if (degree < 2) {
+                    uniqueDegrees[v] = degree;
+                    continue;
+                }
+                if (packed.length < degree) {
+                    int capacity = Math.max(degree, packed.length * 2);
+                    packed = new long[capacity];
+                    sliceTargets = new int[capacity];
+                    sliceWeights = new int[capacity];
+                    first = new boolean[capacity];
+                }
+                // Position added in the high half, slot in the low half
+                for (int i = 0; i < degree; i++) {
+                    packed[i] = ((long) positions[start + i] << 32) | i;
+                }
+                Arrays.sort(packed, 0, degree);
+                for (int i = 0; i < degree; i++) {
+                    int slot = start + (int) packed[i];
+                    sliceTargets[i] = targets[slot];
+                    sliceWeights[i] = weights[slot];
+                }
+                // Target in the high half, index in added order in the low half, so the first of each run of equal
+                // targets is the edge added first
+                for (int i = 0; i < degree; i++) {
+                    packed[i] = ((long) sliceTargets[i] << 32) | i;
+                }
+                Arrays.sort(packed, 0, degree);
+                Arrays.fill(first, 0, degree, false);
+                for (int i = 0; i < degree; i++) {
+                    if (i == 0 || (packed[i] >>> 32) != (packed[i - 1] >>> 32)) {
+                        first[(int) packed[i]] = true;
+                    }
+                }
+                int unique = 0;
+                for (int i = 0; i < degree; i++) {
+                    if (first[i]) {
+                        targets[start + unique] = sliceTargets[i];
+                        weights[start + unique] = sliceWeights[i];
+                        unique++;
+                    }
+                }
+                uniqueDegrees[v] = unique;
+            }
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package graph.gui;
+
+import java.util.Arrays;
+
+/* Contraction hierarchy for fast repeated point to point shortest path queries.
+ *  Preprocessing contracts vertices one at a time (least important first, by edge difference + number of
+ *  contracted neighbours) and adds a shortcut u->w whenever u->v->w is the only shortest path between them.
+ *  A query is then a bidirectional Dijkstra that only follows edges towards higher ranked vertices, which
+ *  settles a tiny part of the graph. Shortcuts remember the vertex they skip so paths can be unpacked.
+ *  Immutable once built, queries run on their thread's shared BidirectionalScratch. Weights must be non-negative.
+ */
+final class ContractionHierarchy {
+    // Caps each witness search. A capped search can only add unneeded shortcuts, never wrong ones.
+    // Priority estimates run far more often than real contractions, so they get a tighter cap
+    private static final int WITNESS_SETTLE_LIMIT = 200;
+    private static final int SIMULATED_WITNESS_SETTLE_LIMIT = 20;
+
+    private final int vertexNum;
+    private final int[] rank;
+    // Upward graph: edges u->w with rank[w] > rank[u], indexed by u
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final long[] upWeights;
+    // Downward graph reversed: edges u->w with rank[u] > rank[w], indexed by w with target u
+    private final int[] downOffsets;
+    private final int[] downTargets;
+    private final long[] downWeights;
+    // (u, w) -> vertex skipped by shortcut u->w, or -1 for original edges
+    private final EdgeIndex middles;
+
+    private ContractionHierarchy(int vertexNum, int[] rank, EdgeList[] outEdges) {
+        this.vertexNum = vertexNum;
+        this.rank = rank;
+        upOffsets = new int[vertexNum + 1];
+        downOffsets = new int[vertexNum + 1];
+        int edgeNum = 0;
+        for (int u = 0; u < vertexNum; u++) {
+            EdgeList out = outEdges[u];
+            for (int i = 0; i < out.size; i++) {
+                int w = out.to[i];
+                if (rank[w] > rank[u]) {
+                    upOffsets[u + 1]++;
+                } else {
+                    downOffsets[w + 1]++;
+                }
+            }
+            edgeNum += out.size;
+        }
+        for (int v = 0; v < vertexNum; v++) {
+            upOffsets[v + 1] += upOffsets[v];
+            downOffsets[v + 1] += downOffsets[v];
+        }
+        upTargets = new int[upOffsets[vertexNum]];
+        upWeights = new long[upOffsets[vertexNum]];
+        downTargets = new int[downOffsets[vertexNum]];
+        downWeights = new long[downOffsets[vertexNum]];
+        middles = new EdgeIndex(edgeNum);
+        int[] upFill = Arrays.copyOf(upOffsets, vertexNum);
+        int[] downFill = Arrays.copyOf(downOffsets, vertexNum);
+        for (int u = 0; u < vertexNum; u++) {
+            EdgeList out = outEdges[u];
+            for (int i = 0; i < out.size; i++) {
+                int w = out.to[i];
+                if (rank[w] > rank[u]) {
+                    upTargets[upFill[u]] = w;
+                    upWeights[upFill[u]++] = out.weight[i];
+                } else {
+                    downTargets[downFill[w]] = u;
+                    downWeights[downFill[w]++] = out.weight[i];
+                }
+                middles.put(u, w, out.middle[i]);
+            }
+        }
+    }
+
+    // Contracts every vertex of graph and returns the resulting hierarchy
+    static ContractionHierarchy build(CsrGraph graph) {
+        return new Contractor(graph).contractAll();
+    }
+
+    int getVertexNum() {
+        return vertexNum;
+    }
+
+    int rankOf(int v) {
+        return rank[v];
+    }
+
+    // Returns a query on this thread's shared scratch, for running a query and then unpacking its path before
+    // the thread's next bidirectional search
+    Query query() {
+        return new Query(BidirectionalScratch.forThread(vertexNum));
+    }
+
+    // Returns length of shortest path from source to target, or Dijkstra.UNREACHABLE
+    long distance(int source, int target) {
+        return query().run(source, target);
+    }
+
+    // Query on a scratch reset by walking the vertices the last search touched
+    final class Query {
+        private final BidirectionalScratch scratch;
+        private final IndexedDaryHeap forwardHeap;
+        private final IndexedDaryHeap backwardHeap;
+        private final long[] forwardDist;
+        private final long[] backwardDist;
+        private final int[] forwardParent;
+        private final int[] backwardParent;
+        private int source = -1;
+        private int target = -1;
+        private int meetingVertex = -1;
+        // Work done by the current run, added to its QueryStats at the end
+        private long pops = 0;
+        private long pushes = 0;
+        private long relaxed = 0;
+
+        private Query(BidirectionalScratch scratch) {
+            this.scratch = scratch;
+            forwardHeap = scratch.forwardHeap;
+            backwardHeap = scratch.backwardHeap;
+            forwardDist = scratch.forwardDist;
+            backwardDist = scratch.backwardDist;
+            forwardParent = scratch.forwardParent;
+            backwardParent = scratch.backwardParent;
+        }
+
+        // Returns length of shortest path from source to target, or Dijkstra.UNREACHABLE
+        long run(int source, int target) {
+            return run(source, target, QueryStats.DISABLED);
+        }
+
+        // Same as run, adding the work done to stats
+        long run(int source, int target, QueryStats stats) {
+            reset();
+            this.source = source;
+            this.target = target;
+            scratch.touch(source);
+            scratch.touch(target);
+            forwardDist[source] = 0;
+            backwardDist[target] = 0;
+            forwardHeap.insertOrDecrease(source, 0);
+            backwardHeap.insertOrDecrease(target, 0);
+            pushes = 2;
+            long best = Dijkstra.UNREACHABLE;
+            // Both searches only go upwards, so neither can stop when they first meet. Each side stops
+            // once its smallest key can't improve on the best meeting distance
+            while (true) {
+                boolean forwardDone = forwardHeap.isEmpty() || forwardHeap.minKey() >= best;
+                boolean backwardDone = backwardHeap.isEmpty() || backwardHeap.minKey() >= best;
+                if (forwardDone && backwardDone) {
+                    break;
+                }
+                if (!forwardDone && (backwardDone || forwardHeap.minKey() <= backwardHeap.minKey())) {
+                    best = settle(forwardHeap, upOffsets, upTargets, upWeights, forwardDist, forwardParent, backwardDist, best);
+                } else {
+                    best = settle(backwardHeap, downOffsets, downTargets, downWeights, backwardDist, backwardParent, forwardDist, best);
+                }
+            }
+            stats.addSearch(pops, relaxed, pushes, pops);
+            return best;
+        }
+
+        private long settle(IndexedDaryHeap heap, int[] offsets, int[] targets, long[] weights, long[] dist, int[] parent, long[] otherDist, long best) {
+            int currNodeId = heap.pop();
+            pops++;
+            long currDist = dist[currNodeId];
+            if (otherDist[currNodeId] != Dijkstra.UNREACHABLE && currDist + otherDist[currNodeId] < best) {
+                best = currDist + otherDist[currNodeId];
+                meetingVertex = currNodeId;
+            }
+            relaxed += offsets[currNodeId + 1] - offsets[currNodeId];
+            for (int e = offsets[currNodeId]; e < offsets[currNodeId + 1]; e++) {
+                int neighbourId = targets[e];
+                long newDist = currDist + weights[e];
+                if (newDist < dist[neighbourId]) {
+                    scratch.touch(neighbourId);
+                    dist[neighbourId] = newDist;
+                    parent[neighbourId] = currNodeId;
+                    heap.insertOrDecrease(neighbourId, newDist);
+                    pushes++;
+                }
+            }
+            return best;
+        }
+
+        // Expands the hierarchy path found by the last run back into original edges.
+        // Returns vertex ids of path (source first), or empty array if target can't be reached
+        int[] unpackPath() {
+            if (meetingVertex == -1) {
+                return new int[0];
+            }
+            // Hierarchy path: source .. meetingVertex .. target
+            int upLength = 0;
+            for (int v = meetingVertex; v != -1; v = forwardParent[v]) {
+                upLength++;
+            }
+            int[] hierarchyPath = new int[upLength];
+            int i = upLength;
+            for (int v = meetingVertex; v != -1; v = forwardParent[v]) {
+                hierarchyPath[--i] = v;
+            }
+            IntStack res = new IntStack();
+            res.push(source);
+            IntStack pending = new IntStack();
+            for (int j = 0; j + 1 < hierarchyPath.length; j++) {
+                unpackEdge(hierarchyPath[j], hierarchyPath[j + 1], pending, res);
+            }
+            for (int v = meetingVertex; v != target; v = backwardParent[v]) {
+                unpackEdge(v, backwardParent[v], pending, res);
+            }
+            return res.toArray();
+        }
+
+        // Appends the vertices after u on the original path of edge u->w
+        private void unpackEdge(int u, int w, IntStack pending, IntStack res) {
+            pending.push(u);
+            pending.push(w);
+            while (pending.size > 0) {
+                int to = pending.pop();
+                int from = pending.pop();
+                int middle = middles.valueAt(middles.find(from, to));
+                if (middle == -1) {
+                    res.push(to);
+                } else {
+                    // from->middle must be expanded before middle->to, so push it last
+                    pending.push(middle);
+                    pending.push(to);
+                    pending.push(from);
+                    pending.push(middle);
+                }
+            }
+        }
+
+        private void reset() {
+            scratch.reset();
+            meetingVertex = -1;
+            pops = 0;
+            pushes = 0;
+            relaxed = 0;
+        }
+    }
+
+    // Mutable graph used during contraction. Edges of contracted vertices are kept as they end up in the hierarchy
+    private static final class Contractor {
+        private final int vertexNum;
+        private final EdgeList[] outEdges;
+        private final EdgeList[] inEdges;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbours;
+        // updatedBy[u] = last vertex whose contraction updated u, so in+out neighbours are updated once
+        private final int[] updatedBy;
+        private final IndexedDaryHeap order;
+        // Witness search scratch
+        private final IndexedDaryHeap witnessHeap;
+        private final long[] witnessDist;
+        private final int[] witnessTouched;
+        private int witnessTouchedNum = 0;
+        // witnessTarget[w] == witnessStamp marks the vertices the current witness search must reach
+        private final int[] witnessTarget;
+        private int witnessStamp = 0;
+
+        Contractor(CsrGraph graph) {
+            vertexNum = graph.vertexNum;
+            outEdges = new EdgeList[vertexNum];
+            inEdges = new EdgeList[vertexNum];
+            for (int v = 0; v < vertexNum; v++) {
+                outEdges[v] = new EdgeList(graph.outDegree(v));
+                inEdges[v] = new EdgeList(4);
+            }
+            for (int v = 0; v < vertexNum; v++) {
+                for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                    int w = graph.targets[e];
+                    if (graph.weights[e] < 0) {
+                        throw new IllegalArgumentException("Contraction hierarchy needs non-negative weights");
+                    }
+                    // Self loops are never on a shortest path
+                    if (w != v) {
+                        outEdges[v].add(w, graph.weights[e], -1);
+                        inEdges[w].add(v, graph.weights[e], -1);
+                    }
+                }
+            }
+            contracted = new boolean[vertexNum];
+            contractedNeighbours = new int[vertexNum];
+            updatedBy = new int[vertexNum];
+            Arrays.fill(updatedBy, -1);
+            order = new IndexedDaryHeap(vertexNum);
+            witnessHeap = new IndexedDaryHeap(vertexNum);
+            witnessDist = filledDistances(vertexNum);
+            witnessTouched = new int[vertexNum];
+            witnessTarget = new int[vertexNum];
+        }
+
+        ContractionHierarchy contractAll() {
+            for (int v = 0; v < vertexNum; v++) {
+                order.insertOrDecrease(v, priority(v));
+            }
+            int[] rank = new int[vertexNum];
+            int nextRank = 0;
+            while (!order.isEmpty()) {
+                int v = order.pop();
+                // Lazy update: priority may have gone up since it was queued
+                long newPriority = priority(v);
+                if (!order.isEmpty() && newPriority > order.minKey()) {
+                    order.insertOrDecrease(v, newPriority);
+                    continue;
+                }
+                contract(v, false);
+                contracted[v] = true;
+                rank[v] = nextRank++;
+                updateNeighbours(v);
+            }
+            return new ContractionHierarchy(vertexNum, rank, outEdges);
+        }
+
+        // Edge difference (shortcuts added minus edges removed) plus number of contracted neighbours
+        private long priority(int v) {
+            int removed = 0;
+            EdgeList in = inEdges[v];
+            for (int i = 0; i < in.size; i++) {
+                if (!contracted[in.to[i]]) {
+                    removed++;
+                }
+            }
+            EdgeList out = outEdges[v];
+            for (int i = 0; i < out.size; i++) {
+                if (!contracted[out.to[i]]) {
+                    removed++;
+                }
+            }
+            return contract(v, true) - removed + contractedNeighbours[v];
+        }
+
+        // Bumps the queued priority of v's neighbours for their new contracted neighbour. The rest of their
+        // priority (edge difference) is refreshed lazily when they reach the front of the queue
+        private void updateNeighbours(int v) {
+            EdgeList[] lists = {inEdges[v], outEdges[v]};
+            for (EdgeList list : lists) {
+                for (int i = 0; i < list.size; i++) {
+                    int u = list.to[i];
+                    if (!contracted[u] && updatedBy[u] != v) {
+                        updatedBy[u] = v;
+                        contractedNeighbours[u]++;
+                        order.changeKey(u, order.keyOf(u) + 1);
+                    }
+                }
+            }
+        }
+
+        // Adds shortcuts needed to remove v (or only counts them if simulate). Returns shortcut count
+        private int contract(int v, boolean simulate) {
+            int shortcuts = 0;
+            EdgeList in = inEdges[v];
+            EdgeList out = outEdges[v];
+            for (int i = 0; i < in.size; i++) {
+                int u = in.to[i];
+                if (contracted[u]) {
+                    continue;
+                }
+                long inWeight = in.weight[i];
+                long maxDist = -1;
+                int targetNum = 0;
+                witnessStamp++;
+                for (int j = 0; j < out.size; j++) {
+                    int w = out.to[j];
+                    if (!contracted[w] && w != u) {
+                        maxDist = Math.max(maxDist, inWeight + out.weight[j]);
+                        witnessTarget[w] = witnessStamp;
+                        targetNum++;
+                    }
+                }
+                if (maxDist < 0) {
+                    continue;
+                }
+                witnessSearch(u, v, maxDist, targetNum, simulate ? SIMULATED_WITNESS_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+                for (int j = 0; j < out.size; j++) {
+                    int w = out.to[j];
+                    long viaV = inWeight + out.weight[j];
+                    if (contracted[w] || w == u || witnessDist[w] <= viaV) {
+                        continue;
+                    }
+                    shortcuts++;
+                    if (!simulate) {
+                        addShortcut(u, w, viaV, v);
+                    }
+                }
+            }
+            return shortcuts;
+        }
+
+        // Dijkstra from u over uncontracted vertices other than skip, until all targetNum marked targets
+        // are settled, keys pass maxDist or the settle limit is hit
+        private void witnessSearch(int u, int skip, long maxDist, int targetNum, int settleLimit) {
+            for (int i = 0; i < witnessTouchedNum; i++) {
+                witnessDist[witnessTouched[i]] = Dijkstra.UNREACHABLE;
+            }
+            witnessTouchedNum = 0;
+            witnessHeap.clear();
+            witnessDist[u] = 0;
+            witnessTouched[witnessTouchedNum++] = u;
+            witnessHeap.insertOrDecrease(u, 0);
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && settled < settleLimit) {
+                if (witnessHeap.minKey() > maxDist) {
+                    break;
+                }
+                int x = witnessHeap.pop();
+                settled++;
+                if (witnessTarget[x] == witnessStamp && --targetNum == 0) {
+                    break;
+                }
+                EdgeList out = outEdges[x];
+                for (int i = 0; i < out.size; i++) {
+                    int y = out.to[i];
+                    if (y == skip || contracted[y]) {
+                        continue;
+                    }
+                    long newDist = witnessDist[x] + out.weight[i];
+                    if (newDist < witnessDist[y]) {
+                        if (witnessDist[y] == Dijkstra.UNREACHABLE) {
+                            witnessTouched[witnessTouchedNum++] = y;
+                        }
+                        witnessDist[y] = newDist;
+                        witnessHeap.insertOrDecrease(y, newDist);
+                    }
+                }
+            }
+        }
+
+        // Adds u->w, or lowers the weight of an existing u->w edge
+        private void addShortcut(int u, int w, long weight, int middle) {
+            EdgeList out = outEdges[u];
+            for (int i = 0; i < out.size; i++) {
+                if (out.to[i] == w) {
+                    if (weight < out.weight[i]) {
+                        out.weight[i] = weight;
+                        out.middle[i] = middle;
+                        EdgeList in = inEdges[w];
+                        for (int j = 0; j < in.size; j++) {
+                            if (in.to[j] == u) {
+                                in.weight[j] = weight;
+                            }
+                        }
+                    }
+                    return;
+                }
+            }
+            out.add(w, weight, middle);
+            inEdges[w].add(u, weight, middle);
+        }
+    }
+
+    // Growable edge list of one vertex, to = neighbour id
+    private static final class EdgeList {
+        int[] to;
+        long[] weight;
+        int[] middle;
+        int size = 0;
+
+        EdgeList(int capacity) {
+            capacity = Math.max(capacity, 1);
+            to = new int[capacity];
+            weight = new long[capacity];
+            middle = new int[capacity];
+        }
+
+        void add(int neighbour, long edgeWeight, int middleVertex) {
+            if (size == to.length) {
+                to = Arrays.copyOf(to, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+            }
+            to[size] = neighbour;
+            weight[size] = edgeWeight;
+            middle[size] = middleVertex;
+            size++;
+        }
+    }
+
+    private static final class IntStack {
+        int[] values = new int[16];
+        int size = 0;
+
+        void push(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int pop() {
+            return values[--size];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static long[] filledDistances(int vertexNum) {
+        long[] dist = new long[vertexNum];
+        Arrays.fill(dist, Dijkstra.UNREACHABLE);
+        return dist;
+    }
+}
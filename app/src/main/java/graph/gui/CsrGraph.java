@@ -0,0 +1,334 @@
+package graph.gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/* Frozen compressed sparse row (CSR) form of a directed weighted graph.
+ *  Out-edges of vertex v are stored at indices offsets[v] (inclusive) to offsets[v + 1] (exclusive)
+ *  of targets (neighbour id) and weights (edge weight). Each vertex's edges are in the order they were added
+ *  (fromAdjList, fromEdgesInOrder) or sorted by target (fromEdges, fromEdgeStream), see the builder used.
+ *  The arrays are never modified once built, so algorithms in this package read them directly.
+ *  Edge indices fit in an int here, the long ones of GraphStore are only needed by stores off the heap.
+ */
+public final class CsrGraph implements GraphStore {
+    final int vertexNum;
+    final int[] offsets;
+    final int[] targets;
+    final int[] weights;
+    // In-edge index (this graph with every edge reversed), built on first use
+    private volatile CsrGraph reverse;
+    // Whether every vertex's edges are sorted by target, so findEdge can binary search. Null until first checked
+    private volatile Boolean sortedTargets;
+
+    CsrGraph(int vertexNum, int[] offsets, int[] targets, int[] weights) {
+        if (offsets.length != vertexNum + 1) {
+            throw new IllegalArgumentException("offsets must have vertexNum + 1 entries");
+        }
+        if (targets.length != weights.length || targets.length != offsets[vertexNum]) {
+            throw new IllegalArgumentException("targets and weights must have one entry per edge");
+        }
+        this.vertexNum = vertexNum;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    // Packs an adjacency list into CSR form, keeping the order of each vertex's edges
+    static CsrGraph fromAdjList(List<List<MyEdge>> adjList) {
+        int vertexNum = adjList.size();
+        int[] offsets = new int[vertexNum + 1];
+        for (int v = 0; v < vertexNum; v++) {
+            offsets[v + 1] = offsets[v] + adjList.get(v).size();
+        }
+        int[] targets = new int[offsets[vertexNum]];
+        int[] weights = new int[offsets[vertexNum]];
+        for (int v = 0; v < vertexNum; v++) {
+            int e = offsets[v];
+            for (MyEdge edge : adjList.get(v)) {
+                targets[e] = edge.neigh;
+                weights[e] = edge.weight;
+                e++;
+            }
+        }
+        return new CsrGraph(vertexNum, offsets, targets, weights);
+    }
+
+    // Packs parallel edge arrays (edge i = from[i] -> to[i] with weight weights[i]) straight into CSR form.
+    // Each vertex's edges end up sorted by target, and of duplicate edges only the first one is kept
+    static CsrGraph fromEdges(int vertexNum, int[] from, int[] to, int[] weights) {
+        if (from.length != to.length || from.length != weights.length) {
+            throw new IllegalArgumentException("from, to and weights must have one entry per edge");
+        }
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        CsrGraph graph = fromEdgeStream(vertexNum, sink -> {
+            for (int i = 0; i < from.length; i++) {
+                sink.edge(from[i], to[i], weights[i]);
+            }
+        });
+        graph.commitBuild(event, "edge arrays");
+        return graph;
+    }
+
+    // Records event for a build that ended with this graph, if JFR is recording it
+    void commitBuild(GraphBuildEvent event, String builder) {
+        if (event.shouldCommit()) {
+            event.builder = builder;
+            event.vertexCount = vertexNum;
+            event.edgeCount = targets.length;
+            event.commit();
+        }
+    }
+
+    /**
+     * Packs edges into CSR form without holding them anywhere else first. edges is run twice, once to count
+     * out-degrees and once to fill the arrays, so it must give the same edges in the same order both times
+     * (e.g. a seeded generator). Each vertex's edges end up sorted by target, and of duplicates only the first is kept
+     * @param vertexNum number of vertices, ids are 0..vertexNum-1
+     * @param edges passes every edge to the sink it is given
+     */
+    static CsrGraph fromEdgeStream(int vertexNum, Consumer<EdgeSink> edges) {
+        int[] offsets = new int[vertexNum + 1];
+        long[] edgeCount = new long[1];
+        edges.accept((from, to, weight) -> {
+            if (from < 0 || from >= vertexNum || to < 0 || to >= vertexNum) {
+                throw new IllegalArgumentException(String.format("Edge %d -> %d out of range", from, to));
+            }
+            offsets[from + 1]++;
+            edgeCount[0]++;
+        });
+        if (edgeCount[0] > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Graph has too many edges for a CsrGraph");
+        }
+        for (int v = 0; v < vertexNum; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        // Stable counting sort by source, so earlier duplicates stay first
+        int[] fill = Arrays.copyOf(offsets, vertexNum);
+        int[] targets = new int[(int) edgeCount[0]];
+        int[] edgeWeights = new int[targets.length];
+        edges.accept((from, to, weight) -> {
+            if (from < 0 || from >= vertexNum || to < 0 || to >= vertexNum || fill[from] == offsets[from + 1]) {
+                throw new IllegalArgumentException("Edge stream gave different edges on its second run");
+            }
+            int slot = fill[from]++;
+            targets[slot] = to;
+            edgeWeights[slot] = weight;
+        });
+        for (int v = 0; v < vertexNum; v++) {
+            if (fill[v] != offsets[v + 1]) {
+                throw new IllegalArgumentException("Edge stream gave different edges on its second run");
+            }
+        }
+        int[] uniqueOffsets = new int[vertexNum + 1];
+        long[] packed = new long[16];
+        int[] sliceWeights = new int[16];
+        for (int v = 0; v < vertexNum; v++) {
+            int start = offsets[v];
+            int degree = offsets[v + 1] - start;
+            if (packed.length < degree) {
+                packed = new long[Math.max(degree, packed.length * 2)];
+                sliceWeights = new int[packed.length];
+            }
+            // Target in the high half, position in the low half, so ties keep input order
+            for (int i = 0; i < degree; i++) {
+                packed[i] = ((long) targets[start + i] << 32) | i;
+                sliceWeights[i] = edgeWeights[start + i];
+            }
+            Arrays.sort(packed, 0, degree);
+            // Unique edges are moved down to just after the previous vertex's unique edges
+            int out = uniqueOffsets[v];
+            for (int i = 0; i < degree; i++) {
+                int target = (int) (packed[i] >>> 32);
+                if (out > uniqueOffsets[v] && targets[out - 1] == target) {
+                    continue;
+                }
+                targets[out] = target;
+                edgeWeights[out] = sliceWeights[(int) packed[i]];
+                out++;
+            }
+            uniqueOffsets[v + 1] = out;
+        }
+        int edgeNum = uniqueOffsets[vertexNum];
+        if (edgeNum != targets.length) {
+            return new CsrGraph(vertexNum, uniqueOffsets, Arrays.copyOf(targets, edgeNum), Arrays.copyOf(edgeWeights, edgeNum));
+        }
+        return new CsrGraph(vertexNum, uniqueOffsets, targets, edgeWeights);
+    }
+
+    // Packs parallel edge arrays (edge i = from[i] -> to[i] with weight weights[i]) into CSR form, keeping each
+    // vertex's edges in input order as an adjacency list built one edge at a time would. Of duplicate edges only
+    // the first one is kept. A stable counting scatter, without sorting
+    static CsrGraph fromEdgesInOrder(int vertexNum, int[] from, int[] to, int[] weights) {
+        if (from.length != to.length || from.length != weights.length) {
+            throw new IllegalArgumentException("from, to and weights must have one entry per edge");
+        }
+        int[] offsets = new int[vertexNum + 1];
+        for (int i = 0; i < from.length; i++) {
+            if (from[i] < 0 || from[i] >= vertexNum || to[i] < 0 || to[i] >= vertexNum) {
+                throw new IllegalArgumentException(String.format("Edge %d -> %d out of range", from[i], to[i]));
+            }
+            offsets[from[i] + 1]++;
+        }
+        for (int v = 0; v < vertexNum; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] fill = Arrays.copyOf(offsets, vertexNum);
+        int[] targets = new int[from.length];
+        int[] edgeWeights = new int[from.length];
+        for (int i = 0; i < from.length; i++) {
+            int slot = fill[from[i]]++;
+            targets[slot] = to[i];
+            edgeWeights[slot] = weights[i];
+        }
+        // stamp[w] = v + 1 once v has an edge to w, so later duplicates are dropped without sorting
+        int[] stamp = new int[vertexNum];
+        int[] uniqueOffsets = new int[vertexNum + 1];
+        for (int v = 0; v < vertexNum; v++) {
+            int out = uniqueOffsets[v];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (stamp[targets[e]] == v + 1) {
+                    continue;
+                }
+                stamp[targets[e]] = v + 1;
+                targets[out] = targets[e];
+                edgeWeights[out] = edgeWeights[e];
+                out++;
+            }
+            uniqueOffsets[v + 1] = out;
+        }
+        int edgeNum = uniqueOffsets[vertexNum];
+        if (edgeNum != targets.length) {
+            return new CsrGraph(vertexNum, uniqueOffsets, Arrays.copyOf(targets, edgeNum), Arrays.copyOf(edgeWeights, edgeNum));
+        }
+        return new CsrGraph(vertexNum, offsets, targets, edgeWeights);
+    }
+
+    @Override
+    public int getVertexNum() {
+        return vertexNum;
+    }
+
+    public int getEdgeNum() {
+        return targets.length;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return targets.length;
+    }
+
+    @Override
+    public long edgeOffset(int v) {
+        return offsets[v];
+    }
+
+    public int outDegree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    // Index of first out-edge of v
+    public int edgeStart(int v) {
+        return offsets[v];
+    }
+
+    // Index one past the last out-edge of v
+    public int edgeEnd(int v) {
+        return offsets[v + 1];
+    }
+
+    @Override
+    public int target(long e) {
+        return targets[(int) e];
+    }
+
+    @Override
+    public int weight(long e) {
+        return weights[(int) e];
+    }
+
+    // Returns index of edge from -> to, or -1 if there is none. Binary searches when each vertex's edges are sorted
+    // by target (as fromEdges/fromEdgeStream leave them), otherwise scans the out-edges of from
+    public int findEdge(int from, int to) {
+        int start = offsets[from];
+        int end = offsets[from + 1];
+        if (hasSortedTargets()) {
+            int e = Arrays.binarySearch(targets, start, end, to);
+            return e >= 0 ? e : -1;
+        }
+        for (int e = start; e < end; e++) {
+            if (targets[e] == to) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    private boolean hasSortedTargets() {
+        Boolean sorted = sortedTargets;
+        if (sorted == null) {
+            // Checking twice on a race is harmless as both get the same answer
+            sorted = Boolean.TRUE;
+            for (int v = 0; v < vertexNum && sorted; v++) {
+                for (int e = offsets[v] + 1; e < offsets[v + 1]; e++) {
+                    if (targets[e - 1] >= targets[e]) {
+                        sorted = Boolean.FALSE;
+                        break;
+                    }
+                }
+            }
+            sortedTargets = sorted;
+        }
+        return sorted;
+    }
+
+    // Returns graph with every edge u->v reversed to v->u, so out-edges of v in it are the in-edges of v here
+    public CsrGraph reverse() {
+        CsrGraph res = reverse;
+        if (res == null) {
+            // Building twice on a race is harmless as both results are identical and immutable
+            res = buildReverse();
+            res.reverse = this;
+            reverse = res;
+        }
+        return res;
+    }
+
+    // Counting sort of edges by target
+    private CsrGraph buildReverse() {
+        int[] revOffsets = new int[vertexNum + 1];
+        for (int e = 0; e < targets.length; e++) {
+            revOffsets[targets[e] + 1]++;
+        }
+        for (int v = 0; v < vertexNum; v++) {
+            revOffsets[v + 1] += revOffsets[v];
+        }
+        int[] fill = new int[vertexNum];
+        System.arraycopy(revOffsets, 0, fill, 0, vertexNum);
+        int[] revTargets = new int[targets.length];
+        int[] revWeights = new int[targets.length];
+        for (int v = 0; v < vertexNum; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int slot = fill[targets[e]]++;
+                revTargets[slot] = v;
+                revWeights[slot] = weights[e];
+            }
+        }
+        return new CsrGraph(vertexNum, revOffsets, revTargets, revWeights);
+    }
+
+    // Rebuilds an adjacency list of new MyEdge objects, for callers that still need the list form
+    public List<List<MyEdge>> toAdjList() {
+        List<List<MyEdge>> adjList = new ArrayList<>(vertexNum);
+        for (int v = 0; v < vertexNum; v++) {
+            List<MyEdge> neighbours = new ArrayList<>(outDegree(v));
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                neighbours.add(new MyEdge(targets[e], weights[e]));
+            }
+            adjList.add(neighbours);
+        }
+        return adjList;
+    }
+}
@@ -0,0 +1,284 @@
+package graph.gui;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/* Parallel single source shortest paths (Meyer & Sanders delta-stepping).
+ *  Vertices are kept in buckets of width delta by tentative distance. The lowest bucket is emptied by
+ *  repeatedly relaxing light edges (weight <= delta) of its vertices in parallel, then heavy edges of every
+ *  vertex removed from it are relaxed once. Relaxations lower distances with a compare-and-set loop on an
+ *  AtomicLongArray, so workers never lock. Each relaxed edge gets its own output slot (prefix sum over the
+ *  frontier's degrees), so improved vertices are collected without contention and bucketed sequentially.
+ *  Queued distances never span more than maxWeight / delta + 2 buckets, so buckets are a cyclic array of that
+ *  many lists indexed by (dist / delta) modulo its length, walked in order with no boxing or rebalancing.
+ *  Distances match sequential Dijkstra. Parents are rebuilt afterwards with a BFS over tight edges.
+ *  Weights must be non-negative.
+ */
+final class DeltaStepping {
+    // Edges relaxed by one leaf task before splitting stops
+    private static final int EDGES_PER_TASK = 4096;
+
+    private final CsrGraph graph;
+    private final long delta;
+    private final ForkJoinPool pool;
+    private final AtomicLongArray dist;
+    // Bucket a vertex was last queued in, or -1 if not queued
+    private final long[] queuedBucket;
+    // removedStamp[v] == bucketStamp if v was already removed from the bucket being processed
+    private final int[] removedStamp;
+    private int bucketStamp = 0;
+    // Bucket b is buckets[b % buckets.length], created when first needed
+    private final IntList[] buckets;
+    // Entries in buckets, including ones left behind when a vertex moved to a lower bucket
+    private long bucketEntries = 0;
+    private int[] relaxed = new int[16];
+    // Work done so far: vertices taken out of buckets, edges relaxed, vertices put into buckets
+    private long settled = 0;
+    private long relaxedEdges = 0;
+    private long bucketPushes = 0;
+
+    private DeltaStepping(CsrGraph graph, long maxWeight, ForkJoinPool pool) {
+        this.graph = graph;
+        delta = chooseDelta(graph, maxWeight);
+        buckets = new IntList[Math.toIntExact(maxWeight / delta + 2)];
+        this.pool = pool;
+        dist = new AtomicLongArray(graph.vertexNum);
+        queuedBucket = new long[graph.vertexNum];
+        removedStamp = new int[graph.vertexNum];
+    }
+
+    /**
+     * Computes shortest distances from source
+     * @param graph graph to search, weights must be non-negative
+     * @param source source vertex id
+     * @param pool pool that relaxations run on
+     * @param distOut filled with distance from source, or Dijkstra.UNREACHABLE
+     * @param parentOut filled with previous vertex on a shortest path, or -1 for source/unreachable vertices
+     */
+    static void run(CsrGraph graph, int source, ForkJoinPool pool, long[] distOut, int[] parentOut) {
+        run(graph, source, pool, distOut, parentOut, QueryStats.DISABLED);
+    }
+
+    // Same as run, adding the work done to stats. Buckets stand in for the heap in its push/pop counts
+    static void run(CsrGraph graph, int source, ForkJoinPool pool, long[] distOut, int[] parentOut, QueryStats stats) {
+        DeltaStepping search = new DeltaStepping(graph, maxWeight(graph), pool);
+        search.solve(source, distOut, parentOut, stats);
+        // dist, queuedBucket, removedStamp, the visited flags and queue of tightEdgeParents, the relaxed slots at
+        // their largest and the bucket array (lists in it aren't counted)
+        long scratch = 25L * graph.vertexNum + 4L * search.relaxed.length + 4L * search.buckets.length;
+        stats.allocateScratch(scratch);
+        stats.releaseScratch(scratch);
+        stats.addSearch(search.settled, search.relaxedEdges, search.bucketPushes, search.settled);
+    }
+
+    private static long maxWeight(CsrGraph graph) {
+        long maxWeight = 0;
+        for (int w : graph.weights) {
+            if (w < 0) {
+                throw new IllegalArgumentException("Delta-stepping needs non-negative weights");
+            }
+            maxWeight = Math.max(maxWeight, w);
+        }
+        return maxWeight;
+    }
+
+    // Max weight / average degree: buckets then hold about one relaxation round of work each
+    private static long chooseDelta(CsrGraph graph, long maxWeight) {
+        long averageDegree = Math.max(1, graph.getEdgeNum() / Math.max(1, graph.vertexNum));
+        return Math.max(1, maxWeight / averageDegree);
+    }
+
+    // Reports settled vertices to stats after each bucket
+    private void solve(int source, long[] distOut, int[] parentOut, QueryStats stats) {
+        for (int v = 0; v < graph.vertexNum; v++) {
+            dist.set(v, Dijkstra.UNREACHABLE);
+        }
+        Arrays.fill(queuedBucket, -1);
+        dist.set(source, 0);
+        queue(source);
+        IntList frontier = new IntList();
+        IntList removed = new IntList();
+        // Emptied bucket list, swapped in for the one being processed
+        IntList spare = null;
+        long reported = 0;
+        for (long bucket = 0; bucketEntries > 0; bucket++) {
+            int slot = (int) (bucket % buckets.length);
+            if (buckets[slot] == null || buckets[slot].size == 0) {
+                continue;
+            }
+            bucketStamp++;
+            removed.clear();
+            // Light edges can put vertices back into this bucket, so keep going until it stays empty
+            while (buckets[slot] != null && buckets[slot].size > 0) {
+                IntList pending = buckets[slot];
+                buckets[slot] = spare;
+                spare = pending;
+                bucketEntries -= pending.size;
+                frontier.clear();
+                for (int i = 0; i < pending.size; i++) {
+                    int v = pending.values[i];
+                    // Skip entries left behind when v moved to a lower bucket
+                    if (queuedBucket[v] == bucket) {
+                        queuedBucket[v] = -1;
+                        settled++;
+                        frontier.add(v);
+                        if (removedStamp[v] != bucketStamp) {
+                            removedStamp[v] = bucketStamp;
+                            removed.add(v);
+                        }
+                    }
+                }
+                pending.clear();
+                relaxAll(frontier, true);
+            }
+            relaxAll(removed, false);
+            stats.reportWork(settled - reported);
+            reported = settled;
+        }
+        for (int v = 0; v < graph.vertexNum; v++) {
+            distOut[v] = dist.get(v);
+        }
+        tightEdgeParents(source, distOut, parentOut);
+    }
+
+    // Relaxes light (or heavy) edges of every frontier vertex in parallel, then buckets improved vertices
+    private void relaxAll(IntList frontier, boolean light) {
+        int n = frontier.size;
+        if (n == 0) {
+            return;
+        }
+        int[] edgePrefix = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            edgePrefix[i + 1] = edgePrefix[i] + graph.outDegree(frontier.values[i]);
+        }
+        int edgeNum = edgePrefix[n];
+        relaxedEdges += edgeNum;
+        if (relaxed.length < edgeNum) {
+            relaxed = new int[Math.max(edgeNum, relaxed.length * 2)];
+        }
+        RelaxTask task = new RelaxTask(frontier.values, edgePrefix, 0, n, light);
+        if (edgeNum <= EDGES_PER_TASK) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        for (int i = 0; i < edgeNum; i++) {
+            if (relaxed[i] >= 0) {
+                queue(relaxed[i]);
+            }
+        }
+    }
+
+    private void queue(int v) {
+        long bucket = dist.get(v) / delta;
+        if (queuedBucket[v] != bucket) {
+            queuedBucket[v] = bucket;
+            bucketPushes++;
+            int slot = (int) (bucket % buckets.length);
+            if (buckets[slot] == null) {
+                buckets[slot] = new IntList();
+            }
+            buckets[slot].add(v);
+            bucketEntries++;
+        }
+    }
+
+    // Lowers dist[v] to newDist if smaller. Returns whether it was lowered
+    private boolean relax(int v, long newDist) {
+        while (true) {
+            long currDist = dist.get(v);
+            if (newDist >= currDist) {
+                return false;
+            }
+            if (dist.compareAndSet(v, currDist, newDist)) {
+                return true;
+            }
+        }
+    }
+
+    // Any edge u->v with dist[u] + w == dist[v] lies on a shortest path, so a BFS over those edges from
+    // source gives a valid tree (even with zero weight cycles, which a per-vertex pick could close)
+    private void tightEdgeParents(int source, long[] distArr, int[] parent) {
+        Arrays.fill(parent, -1);
+        boolean[] visited = new boolean[graph.vertexNum];
+        int[] queue = new int[graph.vertexNum];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        visited[source] = true;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                int v = graph.targets[e];
+                if (!visited[v] && distArr[u] + graph.weights[e] == distArr[v]) {
+                    visited[v] = true;
+                    parent[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+    }
+
+    // Relaxes edges of frontier[from..to), writing improved vertex (or -1) into the edge's slot of relaxed
+    private final class RelaxTask extends RecursiveAction {
+        private final int[] frontier;
+        private final int[] edgePrefix;
+        private final int from;
+        private final int to;
+        private final boolean light;
+
+        RelaxTask(int[] frontier, int[] edgePrefix, int from, int to, boolean light) {
+            this.frontier = frontier;
+            this.edgePrefix = edgePrefix;
+            this.from = from;
+            this.to = to;
+            this.light = light;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && edgePrefix[to] - edgePrefix[from] > EDGES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RelaxTask(frontier, edgePrefix, from, mid, light),
+                    new RelaxTask(frontier, edgePrefix, mid, to, light));
+                return;
+            }
+            int[] offsets = graph.offsets;
+            int[] targets = graph.targets;
+            int[] weights = graph.weights;
+            for (int i = from; i < to; i++) {
+                int u = frontier[i];
+                long currDist = dist.get(u);
+                int slot = edgePrefix[i];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int w = weights[e];
+                    boolean lightEdge = w <= delta;
+                    if (lightEdge == light && relax(targets[e], currDist + w)) {
+                        relaxed[slot++] = targets[e];
+                    } else {
+                        relaxed[slot++] = -1;
+                    }
+                }
+            }
+        }
+    }
+
+    // Growable int array
+    private static final class IntList {
+        int[] values = new int[8];
+        int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
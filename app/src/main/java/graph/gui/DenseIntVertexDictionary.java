@@ -0,0 +1,91 @@
+package graph.gui;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Functions;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Range;
+
+// Vertex dictionary for int graphs whose vertices are exactly 0..n-1, where every vertex is its own id.
+// Lookups are a range check, and nothing is stored per vertex
+final class DenseIntVertexDictionary implements VertexDictionary<Integer> {
+    private int size;
+
+    DenseIntVertexDictionary(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // null is never a vertex, as in the other dictionaries
+    @Override
+    public int idOf(Integer node) {
+        return node != null && node >= 0 && node < size ? node : -1;
+    }
+
+    @Override
+    public Integer nameOf(int id) {
+        return id >= 0 && id < size ? id : null;
+    }
+
+    // Only the next vertex keeps ids dense
+    @Override
+    public int add(Integer node) {
+        if (node == null || node != size) {
+            return -1;
+        }
+        return size++;
+    }
+
+    @Override
+    public Map<Integer, Integer> asMap() {
+        return new IdentityView(this);
+    }
+
+    @Override
+    public Map<Integer, Integer> asInverseMap() {
+        return new IdentityView(this);
+    }
+
+    @Override
+    public VertexDictionary<Integer> frozenCopy() {
+        return new DenseIntVertexDictionary(size);
+    }
+
+    // Map view of v -> v for v in 0..size-1, following later adds
+    private static final class IdentityView extends AbstractMap<Integer, Integer> {
+        private final DenseIntVertexDictionary dictionary;
+
+        IdentityView(DenseIntVertexDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && dictionary.idOf((Integer) key) >= 0;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            return containsKey(key) ? (Integer) key : null;
+        }
+
+        @Override
+        public int size() {
+            return dictionary.size;
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, Integer>> entrySet() {
+            ContiguousSet<Integer> ids = ContiguousSet.create(Range.closedOpen(0, dictionary.size), DiscreteDomain.integers());
+            return Maps.asMap(ids, Functions.<Integer>identity()).entrySet();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package graph.gui;
+
+import java.util.Arrays;
+
+/* Single source Dijkstra over any GraphStore (a CsrGraph, or an off-heap or mapped graph) using an IndexedDaryHeap.
+ *  Distances are 64-bit so sums of large int weights can't overflow. The heap is reused between
+ *  runs, so one instance can answer many queries on graphs up to its vertex capacity without
+ *  allocating. Not thread-safe, use one instance per thread.
+ */
+final class Dijkstra {
+    static final long UNREACHABLE = Long.MAX_VALUE;
+    // Settled vertices are reported as progress whenever pops & REPORT_MASK is 0
+    private static final long REPORT_MASK = QueryProgress.REPORT_INTERVAL - 1;
+
+    private final IndexedDaryHeap heap;
+
+    Dijkstra(int vertexNum) {
+        heap = new IndexedDaryHeap(vertexNum);
+    }
+
+    /**
+     * Computes shortest distances from source. Weights are assumed to be non-negative, though the
+     * source is never relabelled so a negative edge back into it can't create a parent cycle
+     * @param graph graph to search
+     * @param source source vertex id
+     * @param dist filled with distance from source, or UNREACHABLE
+     * @param parent filled with previous vertex on shortest path, or -1 for source/unreachable vertices
+     */
+    void run(GraphStore graph, int source, long[] dist, int[] parent) {
+        run(graph, source, dist, parent, QueryStats.DISABLED);
+    }
+
+    // Same as run, adding the work done to stats
+    void run(GraphStore graph, int source, long[] dist, int[] parent, QueryStats stats) {
+        int vertexNum = graph.getVertexNum();
+        if (vertexNum > heap.capacity()) {
+            throw new IllegalArgumentException("Graph has more vertices than Dijkstra was sized for");
+        }
+        Arrays.fill(dist, 0, vertexNum, UNREACHABLE);
+        Arrays.fill(parent, 0, vertexNum, -1);
+        heap.clear();
+        dist[source] = 0;
+        heap.insertOrDecrease(source, 0);
+        // A CsrGraph's edges are read straight from its arrays, see TopologicalSort.sort
+        CsrGraph csr = graph instanceof CsrGraph ? (CsrGraph) graph : null;
+        // Every pop settles a vertex, and every edge of a settled vertex is relaxed
+        long pops = 0;
+        long pushes = 1;
+        long relaxed = 0;
+        while (!heap.isEmpty()) {
+            int currNodeId = heap.pop();
+            if ((++pops & REPORT_MASK) == 0) {
+                stats.reportWork(QueryProgress.REPORT_INTERVAL);
+            }
+            long currDist = dist[currNodeId];
+            long start = csr != null ? csr.offsets[currNodeId] : graph.edgeOffset(currNodeId);
+            long end = csr != null ? csr.offsets[currNodeId + 1] : graph.edgeOffset(currNodeId + 1);
+            relaxed += end - start;
+            if (csr != null) {
+                int[] targets = csr.targets;
+                int[] weights = csr.weights;
+                for (int e = (int) start; e < (int) end; e++) {
+                    if (relax(currNodeId, currDist + weights[e], targets[e], source, dist, parent)) {
+                        pushes++;
+                    }
+                }
+            } else {
+                for (long e = start; e < end; e++) {
+                    if (relax(currNodeId, currDist + graph.weight(e), graph.target(e), source, dist, parent)) {
+                        pushes++;
+                    }
+                }
+            }
+        }
+        stats.reportWork(pops & REPORT_MASK);
+        stats.addSearch(pops, relaxed, pushes, pops);
+    }
+
+    // Offers neighbourId the path through currNodeId of length newDist, returning whether it was shorter
+    private boolean relax(int currNodeId, long newDist, int neighbourId, int source, long[] dist, int[] parent) {
+        if (newDist < dist[neighbourId] && neighbourId != source) {
+            dist[neighbourId] = newDist;
+            parent[neighbourId] = currNodeId;
+            heap.insertOrDecrease(neighbourId, newDist);
+            return true;
+        }
+        return false;
+    }
+
+    // Bytes of scratch (the heap) used by an instance sized for vertexNum vertices
+    static long scratchBytes(int vertexNum) {
+        return IndexedDaryHeap.bytesFor(vertexNum);
+    }
+}
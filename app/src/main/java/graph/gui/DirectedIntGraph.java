@@ -2,14 +2,69 @@ package graph.gui;
 
 import java.util.ArrayList;
 
+/* Graph whose vertices are ints.
+ *  While the vertices are exactly 0..n-1 every vertex is its own id, so no name table is stored and lookups
+ *  are a range check. Adding any other vertex moves the graph to a general name table (see hasDenseIds()).
+ *  The int[] constructor packs edges straight into CSR form, so batch jobs never build MyEdge objects.
+ */
 public class DirectedIntGraph extends DirectedWeightedGraph<Integer> {
+    public DirectedIntGraph() {
+        super();
+    }
+
     public DirectedIntGraph(ArrayList<Integer[]> edges, ArrayList<Integer> weights) {
         super(edges, weights);
     }
-    
+
+    // Graph of vertices 0..vertexNum-1 where edge i goes from[i] -> to[i] with weight weights[i].
+    // Each vertex's edges are kept sorted by target, and of duplicate edges only the first one is kept
+    public DirectedIntGraph(int vertexNum, int[] from, int[] to, int[] weights) {
+        super(new DenseIntVertexDictionary(vertexNum), CsrGraph.fromEdges(vertexNum, from, to, weights));
+    }
+
+    // Graph made straight from a CsrGraph, e.g. when loading a graph file
+    DirectedIntGraph(VertexDictionary<Integer> vertices, CsrGraph csr) {
+        super(vertices, csr);
+    }
+
+    @Override
+    protected DirectedWeightedGraph<Integer> newEmptyGraph() {
+        return new DirectedIntGraph();
+    }
+
     @Override
-    public DirectedWeightedGraph<Integer> dijkstra(Integer source) {
-        // TODO Auto-generated method stub
-        return null;
+    protected DirectedWeightedGraph<Integer> newGraph(VertexDictionary<Integer> vertices, CsrGraph csr) {
+        return new DirectedIntGraph(vertices, csr);
+    }
+
+    @Override
+    protected VertexDictionary<Integer> newVertexDictionary() {
+        return new DenseIntVertexDictionary(0);
+    }
+
+    // Whether vertices are exactly 0..n-1, so vertex ids equal the vertices themselves
+    public boolean hasDenseIds() {
+        return getVertexDictionary() instanceof DenseIntVertexDictionary;
+    }
+
+    // Returns distance to every vertex from source (indexed by vertex), or ShortestPathTree.UNREACHABLE.
+    // Only for graphs with dense ids
+    public long[] distancesFrom(int source) {
+        if (!hasDenseIds()) {
+            throw new IllegalArgumentException("Vertices must be 0..n-1");
+        }
+        return freeze().shortestPathTree(source).getDistances();
+    }
+
+    // Returns vertices in topological order. Throws exception if cycle detected
+    public int[] topologicalSortIds() {
+        GraphSnapshot<Integer> snapshot = freeze();
+        int[] order = TopologicalSort.sort(snapshot.getCsr(), new int[snapshot.getLength()]);
+        if (!hasDenseIds()) {
+            for (int i = 0; i < order.length; i++) {
+                order[i] = snapshot.nameOf(order[i]);
+            }
+        }
+        return order;
     }
 }
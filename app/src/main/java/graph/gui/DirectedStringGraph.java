@@ -1,10 +1,12 @@
 package graph.gui;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class DirectedStringGraph extends DirectedWeightedGraph<String> {
+    public DirectedStringGraph() {
+        super();
+    }
+
     public DirectedStringGraph(List<String[]> edges, List<Integer> weights) {
         super(edges, weights);
     }
@@ -13,32 +15,34 @@ public class DirectedStringGraph extends DirectedWeightedGraph<String> {
         super(nodes, edges, weights);
     }
     
+    // Graph made straight from a CsrGraph, e.g. when loading a graph file
+    DirectedStringGraph(VertexDictionary<String> vertices, CsrGraph csr) {
+        super(vertices, csr);
+    }
+
     @Override
-    protected void addEdgeSlowSetup(String from, String to, Integer weight) {
+    protected void checkSlowSetupEdge(String from, String to) {
         if (from.isEmpty()) {
             throw new IllegalArgumentException("'from' node must not be blank");
         }
         if (to.isEmpty()) {
             throw new IllegalArgumentException("'to' node must not be blank");
         }
-        super.addEdgeSlowSetup(from, to, weight);
+        super.checkSlowSetupEdge(from, to);
     }
 
     @Override
-    public DirectedWeightedGraph<String> dijkstra(String source) {
-        List<List<MyEdge>> shortestPath = super.dijkstraHelper(source);
-        Map<Integer, String> inverseMap = super.getInverseVertexMap();
-        List<String[]> edges = new ArrayList<>();
-        List<Integer> weights = new ArrayList<>(); 
-        for (int i = 0; i < shortestPath.size(); i++) {
-            List<MyEdge> neighbours = shortestPath.get(i);
-            for (int j = 0; j < neighbours.size(); j++) {
-                MyEdge neighbour = neighbours.get(j);
-                String[] edge = {inverseMap.get(i), inverseMap.get(neighbour.getNeigh())};
-                edges.add(edge);
-                weights.add(neighbour.getWeight());
-            }
-        }
-        return new DirectedStringGraph(edges, weights);
+    protected DirectedWeightedGraph<String> newEmptyGraph() {
+        return new DirectedStringGraph();
+    }
+
+    @Override
+    protected DirectedWeightedGraph<String> newGraph(VertexDictionary<String> vertices, CsrGraph csr) {
+        return new DirectedStringGraph(vertices, csr);
+    }
+
+    @Override
+    protected VertexDictionary<String> newVertexDictionary() {
+        return new StringVertexDictionary();
     }
 }
@@ -1,56 +1,129 @@
 package graph.gui;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.stream.Collectors;
-
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /* Assumptions:
  *  Vertex ids range from 0 to n-1 where n is number of vertices
  *  Only unique edges from a given vertex to another vertex (e.g. not multiple edges linking same out-node to same in-node)
  */
 abstract class DirectedWeightedGraph<T extends Object> implements GraphMethods<T> {
-    public BiMap<T, Integer> vertexMap = HashBiMap.create();
-    // Inner Integer[] will be consist of edge[2] where edge[0] = to_node and edge[1] = weight
-    public List<List<MyEdge>> adjList = new ArrayList<>();
-    public int vertexNum = 0;
+    // Called before any constructor body runs, so it must not depend on subclass fields
+    private VertexDictionary<T> vertices = newVertexDictionary();
+    // Inner Integer[] will be consist of edge[2] where edge[0] = to_node and edge[1] = weight.
+    // Null until something needs the list form (getAdjList() or an edit), unpacked from csr then (see adjList())
+    private List<List<MyEdge>> adjList;
+    // (fromId, toId) -> weight, for O(1) duplicate checks once the graph is edited. Null until the first edge is
+    // inserted, lookups before that search the CSR instead
+    private EdgeIndex edgeIndex;
+    // Frozen CSR form that algorithms run on. Rebuilt lazily from adjList after the graph changes
+    private CsrGraph csr;
+    // Bumped on every change, so a snapshot knows whether it is still current
+    private long version = 0;
+    // Last frozen version, replaced (never modified) once the graph has changed and freeze() is called again
+    private volatile GraphSnapshot<T> snapshot;
+    // Topological order repaired on every edge insertion, only kept once maintainTopologicalOrder() is called
+    private DynamicTopologicalOrder dynamicOrder;
+
+    // Empty graph, nodes and edges are added afterwards (e.g. through addEdgeFastSetup)
+    protected DirectedWeightedGraph() {
+        csr = new CsrGraph(0, new int[1], new int[0], new int[0]);
+    }
+
+    // Graph made straight from a CsrGraph (ids as in vertices), without building MyEdge objects or the edge
+    // index until the graph is edited or asked for them
+    protected DirectedWeightedGraph(VertexDictionary<T> vertices, CsrGraph csr) {
+        if (vertices.size() != csr.vertexNum) {
+            throw new IllegalArgumentException("Vertex dictionary and graph must have the same number of vertices");
+        }
+        this.vertices = vertices;
+        this.csr = csr;
+    }
 
     // This is for fast setup e.g. will add nodes based on nodes appearing on edge list
     protected DirectedWeightedGraph(List<T[]> edges, List<Integer> weights) {
         // e.g edges = [[1,2],[2,3]], weights = [10,50] for graph that connects '1' to '2' with edge of weight 10, and '2' to '3' with weight 50
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        int[] from = new int[edges.size()];
+        int[] to = new int[edges.size()];
         for (int i = 0; i < edges.size(); i++) {
-            addEdgeFastSetup(edges.get(i)[0], edges.get(i)[1], weights.get(i));
+            from[i] = idOrNewNode(edges.get(i)[0]);
+            to[i] = idOrNewNode(edges.get(i)[1]);
         }
+        buildCsr(from, to, weights, event);
     }
     
     // For slow setup e.g. will first add nodes from nodes list then add edges
     protected DirectedWeightedGraph(List<T> nodes, List<T[]> edges, List<Integer> weights) {
         // e.g edges = [[1,2],[2,3]], weights = [10,50] for graph that connects '1' to '2' with edge of weight 10, and '2' to '3' with weight 50
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
         for (int i = 0; i < nodes.size(); i++) {
-            addNode(nodes.get(i));
+            registerNode(nodes.get(i));
         }
+        int[] from = new int[edges.size()];
+        int[] to = new int[edges.size()];
         for (int i = 0; i < edges.size(); i++) {
-            addEdgeSlowSetup(edges.get(i)[0], edges.get(i)[1], weights.get(i));
+            checkSlowSetupEdge(edges.get(i)[0], edges.get(i)[1]);
+            from[i] = vertices.idOf(edges.get(i)[0]);
+            to[i] = vertices.idOf(edges.get(i)[1]);
+        }
+        buildCsr(from, to, weights, event);
+    }
+
+    // Packs edges resolved by a list constructor straight into CSR form. Each vertex's edges keep the order they
+    // were given in, as if added one at a time, and of duplicate edges only the first one is kept
+    private void buildCsr(int[] from, int[] to, List<Integer> weights, GraphBuildEvent event) {
+        int[] edgeWeights = new int[from.length];
+        for (int i = 0; i < from.length; i++) {
+            edgeWeights[i] = weights.get(i);
+        }
+        csr = CsrGraph.fromEdgesInOrder(vertices.size(), from, to, edgeWeights);
+        csr.commitBuild(event, getClass().getSimpleName());
+    }
+
+    private int idOrNewNode(T node) {
+        int id = vertices.idOf(node);
+        return id >= 0 ? id : registerNode(node);
+    }
+
+    // Creates an empty graph of the same concrete type, used to materialise algorithm results
+    protected abstract DirectedWeightedGraph<T> newEmptyGraph();
+
+    // Creates a graph of the same concrete type straight from a CsrGraph, used to materialise algorithm results
+    protected abstract DirectedWeightedGraph<T> newGraph(VertexDictionary<T> vertices, CsrGraph csr);
+
+    // Dictionary new graphs start with. Falls back to a BiMap when it can't hold a node
+    protected VertexDictionary<T> newVertexDictionary() {
+        return new BiMapVertexDictionary<>();
+    }
+
+    protected void addNode(T node) {
+        List<List<MyEdge>> lists = adjList();
+        registerNode(node);
+        lists.add(new ArrayList<MyEdge>());
+        if (dynamicOrder != null) {
+            dynamicOrder.addVertex();
         }
+        graphChanged();
     }
 
-    private void addNode(T node) {
-        int id = vertexNum;
-        if (vertexMap.containsKey(node)) {
+    // Gives node the next id in the dictionary and returns it, without touching the edges
+    private int registerNode(T node) {
+        if (vertices.idOf(node) >= 0) {
             throw new IllegalArgumentException(String.format("Duplicate node %s", node));
         }
-        vertexMap.put(node, id);
-        vertexNum++;
-        adjList.add(new ArrayList<MyEdge>());
+        int id = vertices.add(node);
+        if (id < 0) {
+            vertices = BiMapVertexDictionary.copyOf(vertices);
+            id = vertices.add(node);
+        }
+        return id;
     }
 
     public void addEdgeFastSetup(T from, T to, Integer weight) {
@@ -60,240 +133,262 @@ abstract class DirectedWeightedGraph<T extends Object> implements GraphMethods<T
         if (!nodeExists(to)) {
             addNode(to);
         }
-        if (edgeExists(from, to)) {
-            return;
-        }
-        int nodeFromId = vertexMap.get(from);
-        int nodeToId = vertexMap.get(to);
-        MyEdge newEdge = new MyEdge(nodeToId, weight);
-        List<MyEdge> fromEdges = adjList.get(nodeFromId);
-        fromEdges.add(newEdge);
+        insertEdge(vertices.idOf(from), vertices.idOf(to), weight);
     }
 
     protected void addEdgeSlowSetup(T from, T to, Integer weight) {
+        checkSlowSetupEdge(from, to);
+        insertEdge(vertices.idOf(from), vertices.idOf(to), weight);
+    }
+
+    // Throws exception if an edge between from and to can't be added by slow setup
+    protected void checkSlowSetupEdge(T from, T to) {
         if (!nodeExists(from)) {
             throw new IllegalArgumentException("'from' node must exist");
         }
         if (!nodeExists(to)) {
             throw new IllegalArgumentException("'to' node must exist");
         }
-        if (edgeExists(from, to)) {
+    }
+
+    // Existing edges are left as they are. If a topological order is maintained, an edge closing a cycle
+    // is rejected before anything is added
+    private void insertEdge(int nodeFromId, int nodeToId, Integer weight) {
+        if (edgeIndex().contains(nodeFromId, nodeToId)) {
             return;
         }
-        int nodeFromId = vertexMap.get(from);
-        int nodeToId = vertexMap.get(to);
+        if (dynamicOrder != null) {
+            dynamicOrder.addEdge(nodeFromId, nodeToId);
+        }
+        edgeIndex().put(nodeFromId, nodeToId, weight);
         MyEdge newEdge = new MyEdge(nodeToId, weight);
-        List<MyEdge> fromEdges = adjList.get(nodeFromId);
+        List<MyEdge> fromEdges = adjList().get(nodeFromId);
         fromEdges.add(newEdge);
+        graphChanged();
+    }
+
+    // Unpacks the CSR form into MyEdge lists the first time getAdjList() or an edit needs them
+    private List<List<MyEdge>> adjList() {
+        if (adjList == null) {
+            adjList = csr.toAdjList();
+        }
+        return adjList;
+    }
+
+    private EdgeIndex edgeIndex() {
+        if (edgeIndex == null) {
+            CsrGraph graph = getCsr();
+            EdgeIndex index = new EdgeIndex(graph.getEdgeNum());
+            for (int v = 0; v < graph.vertexNum; v++) {
+                for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                    index.put(v, graph.targets[e], graph.weights[e]);
+                }
+            }
+            edgeIndex = index;
+        }
+        return edgeIndex;
+    }
+
+    // Drops everything derived from the current nodes/edges
+    private void graphChanged() {
+        csr = null;
+        version++;
     }
 
     public boolean nodeExists(T node) {
-        return vertexMap.containsKey(node);
+        return vertices.idOf(node) >= 0;
     }
 
     public boolean edgeExists(T from, T to) {
         if (!nodeExists(from) || !nodeExists(to)) {
             return false;
         }
-        int nodeFromId = vertexMap.get(from);
-        int nodeToId = vertexMap.get(to);
-        List<MyEdge> fromEdges = adjList.get(nodeFromId);
-        for (MyEdge edge: fromEdges) {
-            if (edge.getNeigh() == nodeToId) {
-                return true;
-            }
+        int fromId = vertices.idOf(from);
+        int toId = vertices.idOf(to);
+        if (edgeIndex == null) {
+            return getCsr().findEdge(fromId, toId) >= 0;
         }
-        return false;
+        return edgeIndex.contains(fromId, toId);
     }
+
     public Integer getEdgeWeight(T from, T to) {
         if (!nodeExists(from) || !nodeExists(to)) {
             throw new IllegalArgumentException("'from' AND 'to' node must exist");
         }
-        int nodeFromId = vertexMap.get(from);
-        int nodeToId = vertexMap.get(to);
-        List<MyEdge> fromEdges = adjList.get(nodeFromId);
-        for (MyEdge edge: fromEdges) {
-            if (edge.getNeigh() == nodeToId) {
-                return edge.getWeight();
+        int fromId = vertices.idOf(from);
+        int toId = vertices.idOf(to);
+        if (edgeIndex == null) {
+            CsrGraph graph = getCsr();
+            int e = graph.findEdge(fromId, toId);
+            if (e < 0) {
+                throw new IllegalArgumentException("edge must exist");
             }
+            return graph.weights[e];
+        }
+        int slot = edgeIndex.find(fromId, toId);
+        if (slot < 0) {
+            throw new IllegalArgumentException("edge must exist");
         }
-        throw new IllegalArgumentException("edge must exist");
+        return edgeIndex.valueAt(slot);
     }
 
+    T nameOf(int id) {
+        return vertices.nameOf(id);
+    }
+
+    VertexDictionary<T> getVertexDictionary() {
+        return vertices;
+    }
+
+    // Read-only view of vertex name -> id
     public Map<T, Integer> getVertexMap() {
-        return vertexMap;
+        return vertices.asMap();
     }
 
     // As vertex name and vertex id are unique, the map can be inversed
     public Map<Integer, T> getInverseVertexMap() {
-        return vertexMap.inverse();
+        return vertices.asInverseMap();
     }
 
+    // Compatibility view for callers that need MyEdge objects (e.g. JUNG). Algorithms use getCsr() instead
     public List<List<MyEdge>> getAdjList() {
-        return adjList;
+        return adjList();
+    }
+
+    // Returns the CSR form of the current graph, building it if edges/nodes were added since the last call
+    public CsrGraph getCsr() {
+        if (csr == null) {
+            csr = CsrGraph.fromAdjList(adjList);
+        }
+        return csr;
     }
 
     public int getLength() {
-        return vertexNum;
+        return vertices.size();
     }
 
-    @Override
-    public List<T> topologicalSort() {
-        // Map of nodeId to number of in-degrees
-        Map<Integer, Integer> inDegrees = new HashMap<>();
-        for (int i = 0; i < adjList.size(); i++) {
-            inDegrees.putIfAbsent(i, 0);
-            List<MyEdge> neighbours = adjList.get(i);
-            for (int j = 0; j < neighbours.size(); j++) {
-                int inDegree = inDegrees.getOrDefault(neighbours.get(j).getNeigh(), 0);
-                inDegrees.put(neighbours.get(j).getNeigh(), inDegree + 1);
-            }
-        }
-        Queue<Integer> q = new LinkedList<>();
-        for (int i = 0; i < inDegrees.size(); i++) {
-            int inDegree = inDegrees.get(i);
-            if (inDegree == 0) {
-                q.add(i);
+    // Returns an immutable snapshot of the current nodes and edges, reusing the last one if nothing changed.
+    // Must be called from the thread that edits the graph. The snapshot itself can be shared with any number
+    // of reader threads, which keep querying it without locks while the graph is edited and frozen again
+    public GraphSnapshot<T> freeze() {
+        GraphSnapshot<T> current = snapshot;
+        if (current == null || current.getVersion() != version) {
+            GraphSnapshotEvent event = new GraphSnapshotEvent();
+            event.begin();
+            current = new GraphSnapshot<>(version, getCsr(), vertices.frozenCopy(), this::newEmptyGraph);
+            snapshot = current;
+            if (event.shouldCommit()) {
+                event.operation = "freeze";
+                event.vertexCount = current.getLength();
+                event.edgeCount = current.getCsr().getEdgeNum();
+                event.commit();
             }
         }
+        return current;
+    }
 
-        ArrayList<Integer> resIds = new ArrayList<>();
-        while (q.size() > 0) {
-            int pop = q.poll();
-            resIds.add(pop);
-            for (MyEdge edge : adjList.get(pop)) {
-                int neighId = edge.getNeigh();
-                int newInDegree = inDegrees.get(neighId) - 1;
-                if (newInDegree == 0) {
-                    q.add(neighId);
-                }
-                inDegrees.put(neighId, newInDegree);
+    // Returns the most recently frozen snapshot (possibly older than the graph), or null if never frozen.
+    // Safe to call from any thread
+    public GraphSnapshot<T> latestSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public List<T> topologicalSort() {
+        if (dynamicOrder != null) {
+            int[] order = dynamicOrder.order();
+            List<T> res = new ArrayList<>(order.length);
+            for (int id : order) {
+                res.add(nameOf(id));
             }
+            return res;
         }
+        return topologicalOrder(false).getOrder();
+    }
 
-        if (resIds.size() != vertexNum) {
-            // Exception may not be the right one but it's the best for now
-            throw new IllegalArgumentException("Cycle detected in graph.");
+    // Keeps a topological order up to date from now on, so topologicalSort() no longer re-sorts the whole
+    // graph and each added edge only reorders the vertices between its endpoints. Adding an edge that would
+    // create a cycle then throws an exception and the edge is not added.
+    // Throws exception if the graph already has a cycle
+    public void maintainTopologicalOrder() {
+        if (dynamicOrder == null) {
+            dynamicOrder = new DynamicTopologicalOrder(getCsr());
         }
+    }
 
-        Map<Integer, T> inverse = getInverseVertexMap();
-        return resIds.stream().map(x -> (inverse.get(x))).collect(Collectors.toList());
+    public boolean isTopologicalOrderMaintained() {
+        return dynamicOrder != null;
     }
 
-    // Returns shortest path from source to other connected nodes through an adjacency list
-    protected List<List<MyEdge>> dijkstraHelper(T source) {
-        if (!vertexMap.containsKey(source)) {
-            throw new IllegalArgumentException("Source node invalid");
-        }
-        int[] prev = new int[vertexNum];
-        Arrays.fill(prev, -1);
-        int[] distArr = new int[vertexNum];
-        Arrays.fill(distArr, Integer.MAX_VALUE);
-        PriorityQueue<Helpers.Pair> pq = new PriorityQueue<>(new Helpers.PairComparator());
-        int sourceId = vertexMap.get(source);
-        distArr[sourceId] = Integer.MIN_VALUE;
-        pq.add(new Helpers.Pair(0, sourceId));
-        List<List<MyEdge>> adjList = getAdjList();
-        while (pq.size() != 0) {
-            Helpers.Pair pop = pq.poll();
-            int dist = pop.getDistance();
-            int currNodeId = pop.currNodeId();
-            for (MyEdge neighbour : adjList.get(currNodeId)) {
-                int newDist = dist + neighbour.getWeight();
-                int neighbourId = neighbour.getNeigh();
-                if (newDist < distArr[neighbourId]) {
-                    pq.add(new Helpers.Pair(newDist, neighbourId));
-                    distArr[neighbourId] = newDist;
-                    prev[neighbourId] = currNodeId;
-                }
-            }
-        }
-        Map<Integer, T> inverseMap = getInverseVertexMap();
-        List<List<MyEdge>> newAdjList = new ArrayList<>();
-        // Creating new adjacency list
-        for (int i = 0; i < vertexNum; i++) { 
-            List<MyEdge> neighbours = new ArrayList<>();
-            newAdjList.add(neighbours);
-        }
-        // Adding shortest path edges to adjacency list
-        for (int i = 0; i < prev.length; i++) {
-            if (prev[i] > -1) {
-                T v = inverseMap.get(prev[i]);
-                T u = inverseMap.get(i);
-                int weight = this.getEdgeWeight(v, u);
-                newAdjList.get(prev[i]).add(new MyEdge(i, weight));
-            }
-        }
-        return newAdjList;
+    @Override
+    public TopologicalOrder<T> topologicalOrder(boolean parallel) {
+        return freeze().topologicalOrder(parallel);
+    }
+
+    @Override
+    public ShortestPathTree<T> shortestPathTree(T source) {
+        return freeze().shortestPathTree(source);
+    }
+
+    @Override
+    public ShortestPathTree<T> shortestPathTree(T source, ShortestPathEngine engine) {
+        return freeze().shortestPathTree(source, engine);
+    }
+
+    @Override
+    public void shortestPathTrees(Collection<T> sources, Consumer<ShortestPathTree<T>> consumer) {
+        freeze().shortestPathTrees(sources, consumer);
+    }
+
+    @Override
+    public long[][] allPairsDistances() {
+        return freeze().allPairsDistances();
+    }
+
+    @Override
+    public DirectedWeightedGraph<T> dijkstra(T source) {
+        return freeze().dijkstra(source);
+    }
+
+    @Override
+    public DirectedWeightedGraph<T> dijkstra(T source, ShortestPathEngine engine) {
+        return freeze().dijkstra(source, engine);
+    }
+
+    @Override
+    public ShortestPath<T> shortestPath(T source, T target) {
+        return freeze().shortestPath(source, target);
+    }
+
+    // Builds a contraction hierarchy so later shortestPath queries only search upwards in it.
+    // Worth it when many queries are run between edits. Adding nodes/edges discards it
+    public void prepareContractionHierarchy() {
+        freeze().prepareContractionHierarchy();
+    }
+
+    public boolean hasContractionHierarchy() {
+        GraphSnapshot<T> current = snapshot;
+        return current != null && current.getVersion() == version && current.hasContractionHierarchy();
     }
 
     @Override
     public int fordFulkersonMaxFlow(T source, T sink) {
-        if (!nodeExists(source) || !nodeExists(sink)) {
-            throw new IllegalArgumentException("'Source' AND 'Sink' node must exist");
-        }
-        if (source.equals(sink)) {
-            throw new IllegalArgumentException("Source and Sink cannot be the same!");
-        }
-        int[][] matrix = new int[vertexNum][vertexNum];
-        for (int v = 0; v < vertexNum; v++) {
-            for (MyEdge edge: adjList.get(v)) {
-                int neighId = edge.getNeigh();
-                int weight = edge.getWeight();
-                matrix[v][neighId] = weight;
-            }
-        }
+        return freeze().fordFulkersonMaxFlow(source, sink);
+    }
 
-        int sourceId = vertexMap.get(source);
-        int sinkId = vertexMap.get(sink);
-        int[] parent = new int[vertexNum];
-        int maxFlow = 0;
-        while (fordFulkersonBFS(matrix, sourceId, sinkId, parent)) {
-            int currFlow = Integer.MAX_VALUE;
-            int search = sinkId;
-            while(search != sourceId) {
-                int prev = parent[search];
-                currFlow = Math.min(currFlow, matrix[prev][search]);
-                search = parent[search];
-            }
+    @Override
+    public int maxFlow(T source, T sink, MaxFlowAlgorithm algorithm) {
+        return freeze().maxFlow(source, sink, algorithm);
+    }
 
-            search = sinkId;
-            while(search != sourceId) {
-                int prev = parent[search];
-                matrix[prev][search] -= currFlow;
-                matrix[search][prev] += currFlow;
-                search = parent[search];
-            }
-            maxFlow += currFlow;
-        }
-        return maxFlow;
-    }
-
-    /**
-     * Breadth first search to find if augmenting path exists for Ford-Fulkerson
-     * @param matrix matrix form of graph
-     * @param source source vertex id
-     * @param sink sink vertex id
-     * @param parent array that holds vertex id used to access index-id vertex
-     * @return boolean if path exists from source to sink
-     */
-    private boolean fordFulkersonBFS(int[][] matrix, int source, int sink, int[] parent) {
-        boolean[] vis = new boolean[vertexNum];
-        Queue<Integer> q = new ArrayDeque<>();
-        q.add(source);
-        vis[source] = true;
-        parent[source] = -1;
-        while (!q.isEmpty()) {
-            int popId = q.poll();
-            for (int neighId = 0; neighId < vertexNum; neighId++) {
-                if (!vis[neighId] && matrix[popId][neighId] > 0) {
-                    q.add(neighId);
-                    parent[neighId] = popId;
-                    vis[neighId] = true;
-                }
-            }
-        }
+    // Runs on the current snapshot, so topologicalSort there is Kahn's even if an order is maintained here
+    @Override
+    public <R> Measured<R> measure(Function<GraphMethods<T>, R> query) {
+        return freeze().measure(query);
+    }
 
-        return vis[sink];
+    @Override
+    public <R> Measured<R> measure(Function<GraphMethods<T>, R> query, QueryProgress progress) {
+        return freeze().measure(query, progress);
     }
 }
@@ -0,0 +1,194 @@
+package graph.gui;
+
+import java.util.Arrays;
+
+/* Topological order kept up to date as edges are inserted (Pearce & Kelly, 2006).
+ *  ord[v] is the position of v and vertexAt[p] the vertex at position p. Inserting u->v with ord[u] < ord[v]
+ *  changes nothing. Otherwise only the affected region between ord[v] and ord[u] is searched: forwards from v
+ *  (vertices that must move after u) and backwards from u (vertices that must stay before v), and those
+ *  vertices are shuffled between the positions they already held. The forward search reaching u means the
+ *  edge would close a cycle, so the edge is rejected and nothing changes.
+ *  Keeps its own in/out adjacency as the backwards search needs in-edges.
+ */
+final class DynamicTopologicalOrder {
+    private int vertexNum;
+    private int[] ord;
+    private int[] vertexAt;
+    private IntList[] outEdges;
+    private IntList[] inEdges;
+    // visited[v] == visitStamp if v was reached by the current insertion's searches
+    private int[] visited;
+    private int visitStamp = 0;
+    private final IntList stack = new IntList();
+    private final IntList forward = new IntList();
+    private final IntList backward = new IntList();
+
+    // Starts from a full sort of graph. Throws exception if graph already has a cycle
+    DynamicTopologicalOrder(CsrGraph graph) {
+        vertexNum = graph.vertexNum;
+        int capacity = Math.max(vertexNum, 16);
+        vertexAt = Arrays.copyOf(TopologicalSort.sort(graph, new int[vertexNum]), capacity);
+        ord = new int[capacity];
+        for (int p = 0; p < vertexNum; p++) {
+            ord[vertexAt[p]] = p;
+        }
+        outEdges = new IntList[capacity];
+        inEdges = new IntList[capacity];
+        for (int v = 0; v < vertexNum; v++) {
+            outEdges[v] = new IntList();
+            inEdges[v] = new IntList();
+        }
+        for (int v = 0; v < vertexNum; v++) {
+            for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                outEdges[v].add(graph.targets[e]);
+                inEdges[graph.targets[e]].add(v);
+            }
+        }
+        visited = new int[capacity];
+    }
+
+    // Adds vertex with the next id at the end of the order
+    void addVertex() {
+        if (vertexNum == ord.length) {
+            int capacity = ord.length * 2;
+            ord = Arrays.copyOf(ord, capacity);
+            vertexAt = Arrays.copyOf(vertexAt, capacity);
+            outEdges = Arrays.copyOf(outEdges, capacity);
+            inEdges = Arrays.copyOf(inEdges, capacity);
+            visited = Arrays.copyOf(visited, capacity);
+        }
+        ord[vertexNum] = vertexNum;
+        vertexAt[vertexNum] = vertexNum;
+        outEdges[vertexNum] = new IntList();
+        inEdges[vertexNum] = new IntList();
+        vertexNum++;
+    }
+
+    // Adds edge u->v and repairs the order. Throws exception (leaving everything unchanged) if it closes a cycle
+    void addEdge(int u, int v) {
+        if (u == v) {
+            throw new IllegalArgumentException("Edge would create a cycle.");
+        }
+        int lowerBound = ord[v];
+        int upperBound = ord[u];
+        if (lowerBound < upperBound) {
+            visitStamp++;
+            if (!searchForward(v, upperBound)) {
+                throw new IllegalArgumentException("Edge would create a cycle.");
+            }
+            searchBackward(u, lowerBound);
+            reorder();
+        }
+        outEdges[u].add(v);
+        inEdges[v].add(u);
+    }
+
+    // Returns vertex ids in current topological order
+    int[] order() {
+        return Arrays.copyOf(vertexAt, vertexNum);
+    }
+
+    // Collects vertices reachable from start with ord < upperBound. Returns false if the vertex at upperBound is reached
+    private boolean searchForward(int start, int upperBound) {
+        forward.clear();
+        stack.clear();
+        stack.add(start);
+        visited[start] = visitStamp;
+        while (stack.size > 0) {
+            int w = stack.pop();
+            forward.add(w);
+            IntList out = outEdges[w];
+            for (int i = 0; i < out.size; i++) {
+                int x = out.values[i];
+                if (ord[x] == upperBound) {
+                    return false;
+                }
+                if (visited[x] != visitStamp && ord[x] < upperBound) {
+                    visited[x] = visitStamp;
+                    stack.add(x);
+                }
+            }
+        }
+        return true;
+    }
+
+    // Collects vertices that reach start with ord > lowerBound
+    private void searchBackward(int start, int lowerBound) {
+        backward.clear();
+        stack.clear();
+        stack.add(start);
+        visited[start] = visitStamp;
+        while (stack.size > 0) {
+            int w = stack.pop();
+            backward.add(w);
+            IntList in = inEdges[w];
+            for (int i = 0; i < in.size; i++) {
+                int x = in.values[i];
+                if (visited[x] != visitStamp && ord[x] > lowerBound) {
+                    visited[x] = visitStamp;
+                    stack.add(x);
+                }
+            }
+        }
+    }
+
+    // Gives the backward set the lowest of the positions both sets hold, then the forward set, keeping the
+    // relative order inside each set
+    private void reorder() {
+        long[] backwardByOrd = sortedByOrd(backward);
+        long[] forwardByOrd = sortedByOrd(forward);
+        int[] positions = new int[backwardByOrd.length + forwardByOrd.length];
+        int i = 0;
+        for (long packed : backwardByOrd) {
+            positions[i++] = (int) (packed >>> 32);
+        }
+        for (long packed : forwardByOrd) {
+            positions[i++] = (int) (packed >>> 32);
+        }
+        Arrays.sort(positions);
+        i = 0;
+        for (long packed : backwardByOrd) {
+            place((int) packed, positions[i++]);
+        }
+        for (long packed : forwardByOrd) {
+            place((int) packed, positions[i++]);
+        }
+    }
+
+    // Packs (ord << 32 | vertex) so sorting the longs sorts vertices by position
+    private long[] sortedByOrd(IntList vertices) {
+        long[] res = new long[vertices.size];
+        for (int i = 0; i < vertices.size; i++) {
+            int v = vertices.values[i];
+            res[i] = ((long) ord[v] << 32) | v;
+        }
+        Arrays.sort(res);
+        return res;
+    }
+
+    private void place(int v, int position) {
+        ord[v] = position;
+        vertexAt[position] = v;
+    }
+
+    // Growable int array, also used as a stack
+    private static final class IntList {
+        int[] values = new int[4];
+        int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int pop() {
+            return values[--size];
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
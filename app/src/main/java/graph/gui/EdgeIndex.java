@@ -0,0 +1,116 @@
+package graph.gui;
+
+import java.util.Arrays;
+
+/* Open-addressing hash index of edges, keyed by (fromId, toId) packed into one long.
+ *  Maps each edge to its weight so duplicate checks and weight lookups are O(1) without boxing.
+ *  Uses linear probing; keys are never removed, matching the graph which only ever adds edges.
+ */
+final class EdgeIndex {
+    private static final long EMPTY = -1L; // Packed keys are never negative as vertex ids are >= 0
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size = 0;
+    private int mask;
+
+    EdgeIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    EdgeIndex(int expectedEdges) {
+        int capacity = MIN_CAPACITY;
+        // Keep load factor at or under 1/2
+        while (capacity < expectedEdges * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    static long key(int fromId, int toId) {
+        return ((long) fromId << 32) | (toId & 0xFFFFFFFFL);
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Adds edge with weight if absent. Returns false (and keeps the old weight) if edge already exists
+    boolean put(int fromId, int toId, int weight) {
+        long key = key(fromId, toId);
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = weight;
+        size++;
+        if ((long) size * 2 > keys.length) {
+            if (keys.length == (1 << 30)) {
+                throw new IllegalStateException("Edge index is full");
+            }
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    boolean contains(int fromId, int toId) {
+        return find(fromId, toId) >= 0;
+    }
+
+    // Returns slot of the edge, or -1 if it doesn't exist. Slots are only valid until the next put
+    int find(int fromId, int toId) {
+        long key = key(fromId, toId);
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    int valueAt(int slot) {
+        return values[slot];
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == EMPTY) {
+                continue;
+            }
+            int slot = hash(key) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+
+    // Murmur3 64-bit finaliser so sequential ids spread over the table
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,7 @@
+package graph.gui;
+
+// Receives edges one at a time as plain ints, e.g. from a GraphGenerator, so nothing is boxed or buffered
+@FunctionalInterface
+public interface EdgeSink {
+    void edge(int from, int to, int weight);
+}
@@ -0,0 +1,31 @@
+package graph.gui;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/* JFR event covering the build of a graph from an edge list, generator or concurrent builder.
+ *  Off unless enabled by a settings profile (see graph-gui.jfc). Counts are only computed once shouldCommit()
+ *  says the event will be recorded, so a build outside a recording pays for one allocation at most.
+ */
+@Name("graph.gui.GraphBuild")
+@Label("Graph Build")
+@Category({"Graph GUI", "Graph"})
+@Description("Graph built from edges")
+@Enabled(false)
+@StackTrace(false)
+final class GraphBuildEvent extends jdk.jfr.Event {
+    @Label("Builder")
+    @Description("What built the graph, e.g. its constructor or a generator")
+    String builder;
+
+    @Label("Vertices")
+    long vertexCount;
+
+    @Label("Edges")
+    @Description("Edges in the built graph, after duplicates were dropped")
+    long edgeCount;
+}
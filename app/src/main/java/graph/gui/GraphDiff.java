@@ -0,0 +1,131 @@
+package graph.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/* Changes from one version of a graph to the next, by vertex name, for updating a JUNG graph that shows the old
+ *  version instead of converting the new one from scratch. An edge whose weight changed counts as removed and
+ *  added again. Edges of removed vertices aren't listed, as removing the vertex from JUNG removes them too.
+ *  Computed in O(V + E) from the two graphs' CSR arrays, so it can run in the background on frozen graphs;
+ *  applyTo() then only touches what changed.
+ */
+final class GraphDiff<T> {
+    private final List<T> removedVertices = new ArrayList<>();
+    private final List<T> addedVertices = new ArrayList<>();
+    // Removed edge i goes from removedFrom[i] to removedTo[i], likewise for added edges
+    private final List<T> removedFrom = new ArrayList<>();
+    private final List<T> removedTo = new ArrayList<>();
+    private final List<T> addedFrom = new ArrayList<>();
+    private final List<T> addedTo = new ArrayList<>();
+    private final List<MyEdge> addedEdges = new ArrayList<>();
+
+    private GraphDiff() {
+    }
+
+    /**
+     * Finds what changed from before to after
+     * @param before graph shown now
+     * @param after graph to show instead
+     * @return changes turning before into after
+     */
+    static <T> GraphDiff<T> between(DirectedWeightedGraph<T> before, DirectedWeightedGraph<T> after) {
+        GraphDiff<T> diff = new GraphDiff<>();
+        CsrGraph oldCsr = before.getCsr();
+        CsrGraph newCsr = after.getCsr();
+        VertexDictionary<T> oldVertices = before.getVertexDictionary();
+        // oldId[v] = id in before of vertex v of after, -1 if it's new
+        int[] oldId = new int[newCsr.vertexNum];
+        boolean[] kept = new boolean[oldCsr.vertexNum];
+        for (int v = 0; v < newCsr.vertexNum; v++) {
+            oldId[v] = oldVertices.idOf(after.nameOf(v));
+            if (oldId[v] >= 0) {
+                kept[oldId[v]] = true;
+            } else {
+                diff.addedVertices.add(after.nameOf(v));
+            }
+        }
+        for (int u = 0; u < oldCsr.vertexNum; u++) {
+            if (!kept[u]) {
+                diff.removedVertices.add(before.nameOf(u));
+            }
+        }
+        // Old out-edges of the vertex being compared are marked with its stamp, and unmarked once found in after
+        int[] stamp = new int[oldCsr.vertexNum];
+        int[] oldWeight = new int[oldCsr.vertexNum];
+        for (int v = 0; v < newCsr.vertexNum; v++) {
+            int u = oldId[v];
+            if (u >= 0) {
+                for (int e = oldCsr.offsets[u]; e < oldCsr.offsets[u + 1]; e++) {
+                    stamp[oldCsr.targets[e]] = v + 1;
+                    oldWeight[oldCsr.targets[e]] = oldCsr.weights[e];
+                }
+            }
+            for (int e = newCsr.offsets[v]; e < newCsr.offsets[v + 1]; e++) {
+                int neigh = newCsr.targets[e];
+                int oldNeigh = oldId[neigh];
+                if (u >= 0 && oldNeigh >= 0 && stamp[oldNeigh] == v + 1) {
+                    stamp[oldNeigh] = 0;
+                    if (oldWeight[oldNeigh] == newCsr.weights[e]) {
+                        continue;
+                    }
+                    diff.removedFrom.add(after.nameOf(v));
+                    diff.removedTo.add(after.nameOf(neigh));
+                }
+                diff.addedFrom.add(after.nameOf(v));
+                diff.addedTo.add(after.nameOf(neigh));
+                diff.addedEdges.add(new MyEdge(neigh, newCsr.weights[e]));
+            }
+            if (u >= 0) {
+                for (int e = oldCsr.offsets[u]; e < oldCsr.offsets[u + 1]; e++) {
+                    int oldNeigh = oldCsr.targets[e];
+                    if (stamp[oldNeigh] == v + 1 && kept[oldNeigh]) {
+                        diff.removedFrom.add(after.nameOf(v));
+                        diff.removedTo.add(before.nameOf(oldNeigh));
+                    }
+                }
+            }
+        }
+        return diff;
+    }
+
+    boolean isEmpty() {
+        return removedVertices.isEmpty() && addedVertices.isEmpty() && removedFrom.isEmpty() && addedFrom.isEmpty();
+    }
+
+    List<T> getAddedVertices() {
+        return addedVertices;
+    }
+
+    List<T> getRemovedVertices() {
+        return removedVertices;
+    }
+
+    int getAddedEdgeCount() {
+        return addedFrom.size();
+    }
+
+    int getRemovedEdgeCount() {
+        return removedFrom.size();
+    }
+
+    // Turns g, showing the before graph, into the after graph. Unchanged vertices and edges stay the same objects
+    void applyTo(Graph<T, MyEdge> g) {
+        for (int i = 0; i < removedFrom.size(); i++) {
+            MyEdge edge = g.findEdge(removedFrom.get(i), removedTo.get(i));
+            if (edge != null) {
+                g.removeEdge(edge);
+            }
+        }
+        for (T vertex : removedVertices) {
+            g.removeVertex(vertex);
+        }
+        for (T vertex : addedVertices) {
+            g.addVertex(vertex);
+        }
+        for (int i = 0; i < addedFrom.size(); i++) {
+            g.addEdge(addedEdges.get(i), addedFrom.get(i), addedTo.get(i));
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package graph.gui;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/* Binary graph file, written from a snapshot and opened again by memory mapping it.
+ *  Layout (big-endian, every section starts at a multiple of 8 bytes):
+ *   header      int magic, int format version, int name kind, int vertex count, long edge count,
+ *               long size of names section
+ *   offsets     (V + 1) longs, CSR offsets
+ *   targets     E ints
+ *   weights     E ints
+ *   names       dense int: nothing (vertex v is named v), int: V ints,
+ *               string: (V + 1) long offsets into the UTF-8 bytes that follow them
+ *   checksum    long CRC32 of everything before it
+ *  Ids, edge order and weights are written exactly as in the snapshot, so opening the file and calling
+ *  MappedGraph.toGraph() gives back the same graph. Opening only reads the header; pages are loaded as the
+ *  graph is read.
+ */
+public final class GraphFile {
+    static final int MAGIC = 0x47524146; // "GRAF"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int DENSE_INT_NAMES = 0;
+    static final int INT_NAMES = 1;
+    static final int STRING_NAMES = 2;
+
+    private GraphFile() {
+    }
+
+    public static void write(DirectedWeightedGraph<?> graph, Path path) throws IOException {
+        write(graph.freeze(), path);
+    }
+
+    /**
+     * Writes snapshot to path, replacing any existing file
+     * @param snapshot graph of String or Integer vertices
+     * @param path file to write
+     */
+    public static void write(GraphSnapshot<?> snapshot, Path path) throws IOException {
+        GraphSnapshotEvent event = new GraphSnapshotEvent();
+        event.begin();
+        int nameKind = nameKindOf(snapshot);
+        GraphStore graph = snapshot.getCsr();
+        int vertexNum = graph.getVertexNum();
+        long edgeNum = graph.getEdgeCount();
+        byte[][] encodedNames = null;
+        long namesSize = 0;
+        if (nameKind == INT_NAMES) {
+            namesSize = padded(4L * vertexNum);
+        } else if (nameKind == STRING_NAMES) {
+            encodedNames = new byte[vertexNum][];
+            long arenaSize = 0;
+            for (int id = 0; id < vertexNum; id++) {
+                encodedNames[id] = ((String) snapshot.nameOf(id)).getBytes(StandardCharsets.UTF_8);
+                arenaSize += encodedNames[id].length;
+            }
+            namesSize = 8L * (vertexNum + 1) + padded(arenaSize);
+        }
+
+        CRC32 crc = new CRC32();
+        try (OutputStream file = Files.newOutputStream(path);
+             Output out = new Output(new CheckedOutputStream(file, crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(nameKind);
+            out.writeInt(vertexNum);
+            out.writeLong(edgeNum);
+            out.writeLong(namesSize);
+            for (int v = 0; v <= vertexNum; v++) {
+                out.writeLong(graph.edgeOffset(v));
+            }
+            for (long e = 0; e < edgeNum; e++) {
+                out.writeInt(graph.target(e));
+            }
+            out.pad();
+            for (long e = 0; e < edgeNum; e++) {
+                out.writeInt(graph.weight(e));
+            }
+            out.pad();
+            if (nameKind == INT_NAMES) {
+                for (int id = 0; id < vertexNum; id++) {
+                    out.writeInt((Integer) snapshot.nameOf(id));
+                }
+                out.pad();
+            } else if (nameKind == STRING_NAMES) {
+                long offset = 0;
+                out.writeLong(offset);
+                for (byte[] name : encodedNames) {
+                    offset += name.length;
+                    out.writeLong(offset);
+                }
+                for (byte[] name : encodedNames) {
+                    out.write(name);
+                }
+                out.pad();
+            }
+            // Checksum covers everything written so far, not itself
+            out.flush();
+            out.writeLong(crc.getValue());
+        }
+        commit(event, "write", path, vertexNum, edgeNum);
+    }
+
+    /**
+     * Maps graph file at path. Only the header is checked here, call MappedGraph.verifyChecksum() to check the rest
+     * @param path file written by write
+     * @param nameType String.class or Integer.class, must match the vertices the file was written with
+     * @return graph reading straight from the mapped file
+     */
+    public static <T> MappedGraph<T> open(Path path, Class<T> nameType) throws IOException {
+        GraphSnapshotEvent event = new GraphSnapshotEvent();
+        event.begin();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE + 8) {
+                throw new IOException("Not a graph file: too short");
+            }
+            SegmentedBuffer data = SegmentedBuffer.map(channel, 0, fileSize);
+            if (data.getInt(0) != MAGIC) {
+                throw new IOException("Not a graph file: bad magic number");
+            }
+            if (data.getInt(4) != FORMAT_VERSION) {
+                throw new IOException(String.format("Unsupported graph file version %d", data.getInt(4)));
+            }
+            int nameKind = data.getInt(8);
+            boolean stringNames = nameKind == STRING_NAMES;
+            boolean intNames = nameKind == DENSE_INT_NAMES || nameKind == INT_NAMES;
+            if ((nameType == String.class && !stringNames) || (nameType == Integer.class && !intNames)
+                || (nameType != String.class && nameType != Integer.class)) {
+                throw new IllegalArgumentException(String.format("Graph file vertices can't be read as %s", nameType.getSimpleName()));
+            }
+            int vertexNum = data.getInt(12);
+            long edgeNum = data.getLong(16);
+            long namesSize = data.getLong(24);
+            if (vertexNum < 0 || edgeNum < 0 || namesSize < 0) {
+                throw new IOException("Graph file header is corrupt");
+            }
+            MappedGraph<T> graph = new MappedGraph<>(data, nameKind, vertexNum, edgeNum, namesSize);
+            if (graph.getFileSize() != fileSize) {
+                throw new IOException("Graph file is truncated or has trailing bytes");
+            }
+            commit(event, "open", path, vertexNum, edgeNum);
+            return graph;
+        }
+    }
+
+    private static int nameKindOf(GraphSnapshot<?> snapshot) {
+        DirectedWeightedGraph<?> type = snapshot.newEmptyGraph();
+        if (type instanceof DirectedStringGraph) {
+            return STRING_NAMES;
+        }
+        if (type instanceof DirectedIntGraph) {
+            return snapshot.getVertexDictionary() instanceof DenseIntVertexDictionary ? DENSE_INT_NAMES : INT_NAMES;
+        }
+        throw new IllegalArgumentException("Only graphs of String or Integer vertices can be written");
+    }
+
+    // Records event for a finished file operation, if JFR is recording it
+    static void commit(GraphSnapshotEvent event, String operation, Path path, int vertexNum, long edgeNum) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.path = path == null ? null : path.toString();
+            event.vertexCount = vertexNum;
+            event.edgeCount = edgeNum;
+            event.commit();
+        }
+    }
+
+    // Rounds size up to a multiple of 8
+    static long padded(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    // DataOutputStream keeping a long count of bytes written, as its int size() overflows past 2GB
+    private static final class Output implements AutoCloseable {
+        private final DataOutputStream data;
+        private long written = 0;
+
+        Output(OutputStream out) {
+            data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        }
+
+        void writeInt(int value) throws IOException {
+            data.writeInt(value);
+            written += 4;
+        }
+
+        void writeLong(long value) throws IOException {
+            data.writeLong(value);
+            written += 8;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            data.write(bytes);
+            written += bytes.length;
+        }
+
+        // Pads with zeros up to a multiple of 8
+        void pad() throws IOException {
+            while ((written & 7) != 0) {
+                data.write(0);
+                written++;
+            }
+        }
+
+        void flush() throws IOException {
+            data.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            data.close();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package graph.gui;
+
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/* Seeded synthetic graphs for benchmarks and stress tests.
+ *  A generator holds only its parameters (plus a vertex permutation for R-MAT) and makes its edges again each
+ *  time they are asked for, always the same ones for the same seed. toIntGraph() and toStringGraph() use that to
+ *  pack edges straight into CSR form in two passes (count, then fill), so the largest thing ever held is the
+ *  graph itself, never an edge list. forEachEdge() streams edges anywhere else, e.g. to a file, without any limit
+ *  on their number. Vertices are ids 0..n-1, named by nameOf() in string graphs. Weights are 1..MAX_WEIGHT.
+ */
+public final class GraphGenerator {
+    public static final int MAX_WEIGHT = 100;
+
+    // Name of the graph family, for JFR events
+    private final String family;
+    private final int vertexNum;
+    private final long edgeNum;
+    private final int source;
+    private final int sink;
+    private final Consumer<EdgeSink> edges;
+
+    private GraphGenerator(String family, int vertexNum, long edgeNum, int source, int sink, Consumer<EdgeSink> edges) {
+        this.family = family;
+        this.vertexNum = vertexNum;
+        this.edgeNum = edgeNum;
+        this.source = source;
+        this.sink = sink;
+        this.edges = edges;
+    }
+
+    // R-MAT power-law graph with the Graph500 quadrant probabilities (a = 0.57, b = c = 0.19)
+    public static GraphGenerator rmat(int scale, int edgeFactor, long seed) {
+        return rmat(scale, edgeFactor, 0.57, 0.19, 0.19, seed);
+    }
+
+    /**
+     * R-MAT power-law graph: each edge picks one quadrant of the adjacency matrix per bit of its endpoints,
+     * top-left with probability a, top-right b, bottom-left c and bottom-right the rest. Vertex ids are then
+     * shuffled so the high degree vertices aren't all near 0. Duplicate edges and self loops are generated as they
+     * come; graphs built from them keep the first of each duplicate
+     * @param scale graph has 2^scale vertices
+     * @param edgeFactor edges generated per vertex
+     */
+    public static GraphGenerator rmat(int scale, int edgeFactor, double a, double b, double c, long seed) {
+        if (scale < 1 || scale > 30) {
+            throw new IllegalArgumentException("scale must be between 1 and 30");
+        }
+        if (edgeFactor < 1) {
+            throw new IllegalArgumentException("edgeFactor must be positive");
+        }
+        if (a < 0 || b < 0 || c < 0 || a + b + c > 1) {
+            throw new IllegalArgumentException("Quadrant probabilities must be non-negative and add up to at most 1");
+        }
+        int vertexNum = 1 << scale;
+        long edgeNum = (long) edgeFactor << scale;
+        int[] permutation = shuffledIds(vertexNum, new SplittableRandom(seed).split());
+        // Quadrant bounds as fractions of 2^32, so each level costs 32 random bits and no floating point
+        long belowA = (long) (a * (1L << 32));
+        long belowB = (long) ((a + b) * (1L << 32));
+        long belowC = (long) ((a + b + c) * (1L << 32));
+        return new GraphGenerator("R-MAT", vertexNum, edgeNum, 0, vertexNum - 1, sink -> {
+            SplittableRandom random = new SplittableRandom(seed);
+            for (long e = 0; e < edgeNum; e++) {
+                int from = 0;
+                int to = 0;
+                long bits = 0;
+                for (int level = 0; level < scale; level++) {
+                    if ((level & 1) == 0) {
+                        bits = random.nextLong();
+                    }
+                    long r = bits & 0xFFFFFFFFL;
+                    bits >>>= 32;
+                    // 1 if r >= bound. Quadrants are random so branches would mispredict half the time
+                    long pastA = (belowA - 1 - r) >>> 63;
+                    long pastB = (belowB - 1 - r) >>> 63;
+                    long pastC = (belowC - 1 - r) >>> 63;
+                    // Bottom half (c and d) sets the bit in from, right half (b and d) in to
+                    from |= (int) pastB << level;
+                    to |= (int) ((pastA ^ pastB) | pastC) << level;
+                }
+                sink.edge(permutation[from], permutation[to], randomWeight(random));
+            }
+        });
+    }
+
+    // rows x cols grid where every vertex has an edge to and from each of its up to 4 neighbours, each direction
+    // weighted independently. Vertex (r, c) is id r * cols + c; source and sink are opposite corners
+    public static GraphGenerator grid(int rows, int cols, long seed) {
+        if (rows < 1 || cols < 1) {
+            throw new IllegalArgumentException("Grid must have at least one row and column");
+        }
+        int vertexNum = vertexCount((long) rows * cols);
+        long edgeNum = 2L * rows * (cols - 1) + 2L * cols * (rows - 1);
+        return new GraphGenerator("grid", vertexNum, edgeNum, 0, vertexNum - 1, sink -> {
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    int v = r * cols + c;
+                    if (r > 0) {
+                        sink.edge(v, v - cols, randomWeight(random));
+                    }
+                    if (c > 0) {
+                        sink.edge(v, v - 1, randomWeight(random));
+                    }
+                    if (c < cols - 1) {
+                        sink.edge(v, v + 1, randomWeight(random));
+                    }
+                    if (r < rows - 1) {
+                        sink.edge(v, v + cols, randomWeight(random));
+                    }
+                }
+            }
+        });
+    }
+
+    // Random DAG of layers x width vertices, layer by layer (layer l is ids l * width to (l + 1) * width - 1).
+    // Every vertex outside the last layer has degree edges to random vertices of the next layer
+    public static GraphGenerator layeredDag(int layers, int width, int degree, long seed) {
+        checkLayers(layers, width, degree);
+        int vertexNum = vertexCount((long) layers * width);
+        long edgeNum = (long) (layers - 1) * width * degree;
+        return new GraphGenerator("layered DAG", vertexNum, edgeNum, 0, vertexNum - 1, sink -> {
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int v = 0; v < vertexNum - width; v++) {
+                int nextLayer = (v / width + 1) * width;
+                for (int i = 0; i < degree; i++) {
+                    sink.edge(v, nextLayer + random.nextInt(width), randomWeight(random));
+                }
+            }
+        });
+    }
+
+    // Flow network: source (id 0) -> every vertex of the first layer, degree edges from every vertex to random
+    // vertices of the next layer as in layeredDag, and every vertex of the last layer -> sink (last id).
+    // Layer l is ids 1 + l * width to (l + 1) * width. Weights are the capacities
+    public static GraphGenerator flowNetwork(int layers, int width, int degree, long seed) {
+        checkLayers(layers, width, degree);
+        int vertexNum = vertexCount((long) layers * width + 2);
+        int sink = vertexNum - 1;
+        long edgeNum = 2L * width + (long) (layers - 1) * width * degree;
+        return new GraphGenerator("flow network", vertexNum, edgeNum, 0, sink, out -> {
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int v = 1; v <= width; v++) {
+                out.edge(0, v, randomWeight(random));
+            }
+            for (int v = 1; v < sink - width; v++) {
+                int nextLayer = 1 + ((v - 1) / width + 1) * width;
+                for (int i = 0; i < degree; i++) {
+                    out.edge(v, nextLayer + random.nextInt(width), randomWeight(random));
+                }
+            }
+            for (int v = sink - width; v < sink; v++) {
+                out.edge(v, sink, randomWeight(random));
+            }
+        });
+    }
+
+    public int getVertexNum() {
+        return vertexNum;
+    }
+
+    // Number of edges generated, including any duplicates a built graph drops
+    public long getEdgeNum() {
+        return edgeNum;
+    }
+
+    // Natural start vertex: source of a flow network, first corner of a grid, vertex 0 otherwise
+    public int getSource() {
+        return source;
+    }
+
+    // Natural end vertex: sink of a flow network, last corner of a grid, last vertex otherwise
+    public int getSink() {
+        return sink;
+    }
+
+    // Name of vertex id in graphs from toStringGraph()
+    public static String nameOf(int id) {
+        return Integer.toString(id);
+    }
+
+    // Passes every edge to sink, in the same order on every call
+    public void forEachEdge(EdgeSink sink) {
+        edges.accept(sink);
+    }
+
+    // Graph of vertices 0..n-1. Throws exception if there are too many edges for int edge indices
+    public DirectedIntGraph toIntGraph() {
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        CsrGraph csr = CsrGraph.fromEdgeStream(vertexNum, edges);
+        csr.commitBuild(event, family + " generator");
+        return new DirectedIntGraph(new DenseIntVertexDictionary(vertexNum), csr);
+    }
+
+    // Graph of vertices named nameOf(id), with the same ids. Throws exception if there are too many edges for
+    // int edge indices
+    public DirectedStringGraph toStringGraph() {
+        GraphBuildEvent event = new GraphBuildEvent();
+        event.begin();
+        StringVertexDictionary names = new StringVertexDictionary();
+        for (int id = 0; id < vertexNum; id++) {
+            names.add(nameOf(id));
+        }
+        CsrGraph csr = CsrGraph.fromEdgeStream(vertexNum, edges);
+        csr.commitBuild(event, family + " generator");
+        return new DirectedStringGraph(names, csr);
+    }
+
+    private static int randomWeight(SplittableRandom random) {
+        return 1 + random.nextInt(MAX_WEIGHT);
+    }
+
+    private static int[] shuffledIds(int vertexNum, SplittableRandom random) {
+        int[] ids = new int[vertexNum];
+        for (int i = 0; i < vertexNum; i++) {
+            ids[i] = i;
+        }
+        for (int i = vertexNum - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return ids;
+    }
+
+    private static void checkLayers(int layers, int width, int degree) {
+        if (layers < 1 || width < 1 || degree < 1) {
+            throw new IllegalArgumentException("layers, width and degree must be positive");
+        }
+    }
+
+    private static int vertexCount(long vertexNum) {
+        if (vertexNum > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many vertices for int vertex ids");
+        }
+        return (int) vertexNum;
+    }
+}
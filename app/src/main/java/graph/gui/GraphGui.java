@@ -7,10 +7,23 @@ package graph.gui;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.StringSelection;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.awt.geom.Ellipse2D;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
 import javax.swing.BorderFactory;
@@ -18,40 +31,67 @@ import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
+import javax.swing.JTable;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.TransferHandler;
 
 import org.apache.commons.collections15.Transformer;
 
-import edu.uci.ics.jung.algorithms.layout.FRLayout;
-import edu.uci.ics.jung.algorithms.layout.Layout;
 import edu.uci.ics.jung.graph.DirectedSparseGraph;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.visualization.GraphZoomScrollPane;
 import edu.uci.ics.jung.visualization.VisualizationViewer;
 import edu.uci.ics.jung.visualization.control.DefaultModalGraphMouse;
+import edu.uci.ics.jung.visualization.decorators.EdgeShape;
+import edu.uci.ics.jung.visualization.renderers.Renderer;
 
 public class GraphGui {
     private JFrame frame = new JFrame();
     private JPanel mainPanel = new JPanel(new CardLayout()), homePageContainer = new JPanel(), graphPageContainer = new JPanel();
-    private JPanel graphPageNodeContainer = new JPanel(), graphVisualisationCards = new JPanel(new CardLayout()), graphVisualContainer = new JPanel(new BorderLayout());
-    private JScrollPane graphPageNodeContainerWrapper = new JScrollPane(graphPageNodeContainer), graphPageContainerScroll = new JScrollPane(graphPageContainer);
-    private JButton goToStringGraphBtn, goHomeBtn, addNodeBtn, removeNodeBtn, resetGraphBtn, finishGraphBtn;
+    private JPanel graphVisualisationCards = new JPanel(new CardLayout()), graphVisualContainer = new JPanel(new BorderLayout());
+    // One row per edge (node, neighbour, weight). JTable only renders the rows in view, so big graphs stay responsive
+    private GraphTableModel graphTableModel = new GraphTableModel();
+    private JTable graphTable = new JTable(graphTableModel);
+    private JScrollPane graphPageNodeContainerWrapper = new JScrollPane(graphTable), graphPageContainerScroll = new JScrollPane(graphPageContainer);
+    private JButton goToStringGraphBtn, goHomeBtn, addNodeBtn, removeNodeBtn, importEdgesBtn, resetGraphBtn, finishGraphBtn;
     JLabel graphErrorLabel = new JLabel();
-    private List<JTextField> nodeTextFields; // Index of nodes corresponds to index of edges
-    private List<List<EdgeJTextField>> edgeJTextFields; // edgeTextFields[v] = adjacency list of node v which shows neighbour connection + weight
     private DirectedStringGraph directedStringGraph;
+    // JUNG graph of directedStringGraph on screen, null if none. Finishing the graph again edits it in place
+    private Graph<String, MyEdge> displayedGraph;
+    private VisualizationViewer<String, MyEdge> graphViewer;
+    private GraphZoomScrollPane graphScrollPane;
     ButtonGroup radioAlgorithmGroup;
     private JPanel algorithmResultContainer, emptyUserInputContainer, oneUserInputsContainer, twoUserInputsContainer;
     private JPanel algorithmUserInputCards = new JPanel(new CardLayout());
     private JTextField userInputFstField, userInputSndField;
     private static final String[] GRAPH_ALGOS = {"Topological", "Dijkstra", "Max Flow"};
+    // Building the graph and running algorithms happen on a background worker, one at a time, with a progress bar
+    // and cancel button shown while it runs
+    private JPanel workerStatusContainer = new JPanel(new BorderLayout());
+    private JProgressBar workerProgressBar = new JProgressBar(0, PROGRESS_STEPS);
+    private JButton cancelWorkerBtn;
+    private SwingWorker<?, ?> runningWorker;
+    private QueryProgress runningProgress; // Null if the running worker has no progress counters
+    private Timer progressTimer;
+    private static final int PROGRESS_STEPS = 1000;
+    private static final int PROGRESS_REFRESH_MS = 100;
+    // Graphs with more vertices or edges than these are drawn without labels, see createVisualizationViewer
+    private static final int DETAILED_VERTEX_LIMIT = 200;
+    private static final int DETAILED_EDGE_LIMIT = 500;
+    private static final Font VERTEX_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final Shape SMALL_VERTEX = new Ellipse2D.Double(-4, -4, 8, 8);
 
     // Initialise GraphGui
     public GraphGui() {
@@ -93,23 +133,24 @@ public class GraphGui {
     private void createGraphPage() {
         graphPageContainerScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         JPanel goHomeBtnWrapper = new JPanel(new BorderLayout());
-        JPanel addRemoveNodeBtnWrapper = new JPanel(new GridLayout(1, 2));
+        JPanel addRemoveNodeBtnWrapper = new JPanel(new GridLayout(1, 3));
         JPanel resetGraphBtnWrapper = new JPanel(new BorderLayout());
         JPanel finishGraphBtnWrapper = new JPanel(new BorderLayout());
         graphPageContainer.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
         graphPageContainer.setLayout(new BoxLayout(graphPageContainer, BoxLayout.Y_AXIS));
         goHomeBtn = new JButton(new ButtonAction("Go Home"));
         graphPageMainButtonsFunctionality();
-        graphPageNodeContainer.setLayout(new GridLayout(0, 1));
+        graphTable.setFillsViewportHeight(true);
+        graphTable.setTransferHandler(new EdgeListTransferHandler());
+        graphTable.setDragEnabled(true);
         graphPageNodeContainerWrapper.setPreferredSize(new Dimension(700, 500));
-        nodeTextFields = new ArrayList<>();
-        edgeJTextFields = new ArrayList<>();
 
         goHomeBtnWrapper.add(goHomeBtn);
         resetGraphBtnWrapper.add(resetGraphBtn);
         finishGraphBtnWrapper.add(finishGraphBtn);
         addRemoveNodeBtnWrapper.add(removeNodeBtn);
         addRemoveNodeBtnWrapper.add(addNodeBtn);
+        addRemoveNodeBtnWrapper.add(importEdgesBtn);
         graphPageContainer.add(goHomeBtnWrapper);
         graphPageContainer.add(addRemoveNodeBtnWrapper);
         graphPageContainer.add(graphPageNodeContainerWrapper);
@@ -117,31 +158,36 @@ public class GraphGui {
         // Rigid area for space between finishing graph / resetting graph
         graphPageContainer.add(Box.createRigidArea(new Dimension(0,20)));
         graphPageContainer.add(finishGraphBtnWrapper);
+        graphPageContainer.add(workerStatusContainer);
 
         graphPageContainer.add(graphVisualisationCards);
     }
 
     // Adds button functionality to graph page
     private void graphPageMainButtonsFunctionality() {
-        addNodeBtn = new JButton("Add Node");
+        addNodeBtn = new JButton("Add Row");
         addNodeBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                addNode();
-                graphPageNodeContainerWrapper.validate();
+                addRow();
             }
         });
 
-        removeNodeBtn = new JButton("Remove Node");
+        removeNodeBtn = new JButton("Remove Rows");
         removeNodeBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if (nodeTextFields.size() > 0) {
-                    nodeTextFields.removeLast();
-                    edgeJTextFields.removeLast();
-                    graphPageNodeContainer.remove(graphPageNodeContainer.getComponentCount() - 1);
-                    graphPageContainer.revalidate();
-                    graphPageContainer.repaint();
+                removeSelectedRows();
+            }
+        });
+
+        importEdgesBtn = new JButton("Import Edge List");
+        importEdgesBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                JFileChooser chooser = new JFileChooser();
+                if (chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+                    importEdgeList(chooser.getSelectedFile());
                 }
             }
         });
@@ -150,11 +196,11 @@ public class GraphGui {
         resetGraphBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                cancelRunningWorker();
                 graphVisualisationCards.setVisible(false);
-                nodeTextFields.clear();
-                edgeJTextFields.clear();
-                graphPageNodeContainer.removeAll();
-                graphPageNodeContainer.revalidate();
+                clearGraphVisualisation();
+                stopTableEditing();
+                graphTableModel.clear();
                 graphPageContainer.repaint();
             }
         });
@@ -163,135 +209,261 @@ public class GraphGui {
         finishGraphBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                stopTableEditing();
+                if (graphTableModel.getRowCount() == 0) {
+                    clearGraphVisualisation();
+                    return;
+                }
                 try {
-                    if (graphVisualContainer.getComponentCount() > 0) {
-                        graphVisualContainer.removeAll();
-                    }
-                    if (nodeTextFields.size() == 0) {
-                        return;
-                    }
                     validateAndSetGraph();
-                    addGraphVisualisation();
-                    CardLayout layout = (CardLayout) graphVisualisationCards.getLayout();
-                    layout.show(graphVisualisationCards, "GraphVisual");
-                    graphVisualisationCards.setVisible(true);
                 } catch (Exception error) {
-                    CardLayout layout = (CardLayout) graphVisualisationCards.getLayout();
-                    graphErrorLabel.setText(error.toString());
-                    layout.show(graphVisualisationCards, "GraphError");
-                    graphVisualisationCards.setVisible(true);
-                } finally {
-                    graphPageContainer.repaint();
-                    graphPageContainer.revalidate();
+                    showGraphError(error);
                 }
             }
         });
-    }
 
-    // Functionality for adding nodes to graph
-    private void addNode() {
-        JPanel nodeInformation = new JPanel();
-        nodeInformation.setPreferredSize(new Dimension(650,100));
-        nodeInformation.setLayout(new BoxLayout(nodeInformation, 0));
-        JPanel nodeNameContainer = new JPanel(new GridLayout(1, 2));
-        nodeNameContainer.setPreferredSize(new Dimension(100, 200));
-        nodeNameContainer.add(new JLabel(String.valueOf(nodeTextFields.size())));
-        JTextField nodeName = new JTextField(String.valueOf(nodeTextFields.size()));
-        nodeNameContainer.add(nodeName);
-        nodeNameContainer.setBorder(BorderFactory.createLineBorder(Color.GRAY));
-        nodeTextFields.add(nodeName);
-        nodeInformation.add(nodeNameContainer);
-        this.addEdgeInformation(nodeInformation);
-        graphPageNodeContainer.add(nodeInformation);
+        setUpWorkerStatus();
     }
 
-    // Extension of addNode() which adds edge information for added node
-    private void addEdgeInformation(JPanel nodeInformation) {
-        // edgeInformationBorder exists to prevent GridLayout from evenly spacing added edges in panel
-        JPanel edgeInformationBorder = new JPanel(new BorderLayout());
-        JPanel edgeInformationGrid = new JPanel(new GridLayout(0, 1));
-        edgeInformationBorder.add(edgeInformationGrid, BorderLayout.NORTH);
-        JScrollPane edgeInformationWrapper = new JScrollPane(edgeInformationBorder);
-        edgeInformationWrapper.setPreferredSize(new Dimension(400, 200));
-        JPanel addRemoveEdgeContainer = new JPanel();
-        addRemoveEdgeContainer.setLayout(new GridLayout(1, 2, 4, 0));
-        addRemoveEdgeContainer.setPreferredSize(new Dimension(150,200));
-        JButton addEdgeBtn = new JButton("+");
-        JButton removeEdgeBtn = new JButton("-");
-
-        List<EdgeJTextField> currNodeEdges = new ArrayList<>();
-        edgeJTextFields.add(currNodeEdges);
-
-        // Functionality to add edge to node
-        addEdgeBtn.addActionListener(new ActionListener() {
+    // Sets up the progress bar and cancel button shown while a background worker runs
+    private void setUpWorkerStatus() {
+        cancelWorkerBtn = new JButton("Cancel");
+        cancelWorkerBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                JPanel edgeContainer = new JPanel();
-                JLabel edgeNum = new JLabel(String.valueOf(currNodeEdges.size() + 1));
-                JTextField edgeName = new JTextField(10);
-                JTextField edgeWeight = new JTextField("1", 10);
-                currNodeEdges.add(new EdgeJTextField(edgeName, edgeWeight));
-                edgeContainer.add(edgeNum);
-                edgeContainer.add(edgeName);
-                edgeContainer.add(edgeWeight);
-                edgeInformationGrid.add(edgeContainer);
-                nodeInformation.revalidate();
-                nodeInformation.repaint();
+                cancelRunningWorker();
             }
         });
-
-        // Functionality to remove edge from node
-        removeEdgeBtn.addActionListener(new ActionListener() {
+        // Polls the algorithm's own counters, so the algorithm never has to call back into Swing
+        progressTimer = new Timer(PROGRESS_REFRESH_MS, new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if (currNodeEdges.size() > 0) {
-                    currNodeEdges.removeLast();
+                if (runningProgress != null) {
+                    workerProgressBar.setValue((int) (runningProgress.getFraction() * PROGRESS_STEPS));
                 }
-                if (edgeInformationGrid.getComponentCount() > 0) {
-                    edgeInformationGrid.remove(edgeInformationGrid.getComponentCount() - 1);
-                }
-                nodeInformation.revalidate();
-                nodeInformation.repaint();
             }
         });
+        workerProgressBar.setStringPainted(true);
+        workerStatusContainer.add(workerProgressBar, BorderLayout.CENTER);
+        workerStatusContainer.add(cancelWorkerBtn, BorderLayout.EAST);
+        workerStatusContainer.setVisible(false);
+    }
 
-        addRemoveEdgeContainer.add(removeEdgeBtn);
-        addRemoveEdgeContainer.add(addEdgeBtn);
-        nodeInformation.add(edgeInformationWrapper);
-        nodeInformation.add(addRemoveEdgeContainer);
+    // Runs worker in the background, cancelling any worker still running, and shows its progress until it's done.
+    // progress is null for work without progress counters, which shows an indeterminate bar
+    private void startWorker(SwingWorker<?, ?> worker, QueryProgress progress) {
+        cancelRunningWorker();
+        runningWorker = worker;
+        runningProgress = progress;
+        workerProgressBar.setIndeterminate(progress == null);
+        workerProgressBar.setStringPainted(progress != null);
+        workerProgressBar.setValue(0);
+        workerStatusContainer.setVisible(true);
+        progressTimer.start();
+        graphPageContainer.revalidate();
+        worker.execute();
     }
 
-    // Converts user inputs to DirectedStringGraph for validation
-    private void validateAndSetGraph() {
-        List<String> nodeStrings = nodeTextFields.stream().map(node -> (node.getText())).collect(Collectors.toList());
-        if (nodeStrings.size() == 0) {
+    // Called on the EDT when worker is done. Returns false if worker was replaced by a newer one, whose result
+    // is the one to show
+    private boolean finishWorker(SwingWorker<?, ?> worker) {
+        if (worker != runningWorker) {
+            return false;
+        }
+        runningWorker = null;
+        runningProgress = null;
+        progressTimer.stop();
+        workerStatusContainer.setVisible(false);
+        graphPageContainer.revalidate();
+        return true;
+    }
+
+    // Algorithms stop at their next progress report. Graph building can't be interrupted, so it runs on and its
+    // result is thrown away
+    private void cancelRunningWorker() {
+        if (runningWorker != null) {
+            if (runningProgress != null) {
+                runningProgress.cancel();
+            }
+            runningWorker.cancel(false);
+        }
+    }
+
+    // Shows error in place of the graph visualisation
+    private void showGraphError(Throwable error) {
+        CardLayout layout = (CardLayout) graphVisualisationCards.getLayout();
+        graphErrorLabel.setText(error.toString());
+        layout.show(graphVisualisationCards, "GraphError");
+        graphVisualisationCards.setVisible(true);
+        graphPageContainer.repaint();
+        graphPageContainer.revalidate();
+    }
+
+    // Adds a row for a new node, named after the row count like the old per-node editor did
+    private void addRow() {
+        stopTableEditing();
+        int row = graphTableModel.getRowCount();
+        graphTableModel.addRow(String.valueOf(row), "", GraphTableModel.DEFAULT_WEIGHT);
+        graphTable.scrollRectToVisible(graphTable.getCellRect(row, GraphTableModel.NODE_COLUMN, true));
+    }
+
+    // Removes the selected rows, or the last row if none are selected
+    private void removeSelectedRows() {
+        stopTableEditing();
+        if (graphTableModel.getRowCount() == 0) {
             return;
         }
-        List<String[]> edges = new ArrayList<>();
-        List<Integer> weights = new ArrayList<>();
-        for (int i = 0; i < edgeJTextFields.size(); i++) {
-            int j = i;
-            edgeJTextFields.get(i).forEach(node -> {
-                String neighString = node.getNeigh(); 
-                String[] resEdge = {nodeStrings.get(j), neighString};
-                edges.add(resEdge);
-                int edgeWeight = node.getWeight();
-                weights.add(edgeWeight);
-            });
+        int[] rows = graphTable.getSelectedRows();
+        if (rows.length == 0) {
+            rows = new int[] {graphTableModel.getRowCount() - 1};
+        }
+        graphTableModel.removeRows(rows);
+    }
+
+    // Commits a cell still being edited, so its value is in the model
+    private void stopTableEditing() {
+        if (graphTable.isEditing()) {
+            graphTable.getCellEditor().stopCellEditing();
+        }
+    }
+
+    // Reads an edge list file in the background and appends its rows to the table
+    private void importEdgeList(File file) {
+        startWorker(new SwingWorker<GraphTableModel, Void>() {
+            @Override
+            protected GraphTableModel doInBackground() throws IOException {
+                try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    return GraphTableModel.parseEdgeList(in);
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (!finishWorker(this) || isCancelled()) {
+                    return;
+                }
+                try {
+                    graphTableModel.addRows(get());
+                } catch (ExecutionException error) {
+                    showGraphError(error.getCause());
+                } catch (InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, null);
+    }
+
+    // Copies the table, then converts it to DirectedStringGraph for validation in the background. The graph is
+    // frozen there too, and either diffed against the graph on screen or, if there is none, converted to a JUNG
+    // graph, so only the visualisation is updated on the EDT
+    private void validateAndSetGraph() {
+        GraphTableModel rows = graphTableModel.copy();
+        if (rows.getRowCount() == 0) {
+            return;
         }
-        directedStringGraph = new DirectedStringGraph(nodeStrings, edges, weights);
+        DirectedStringGraph shownGraph = displayedGraph == null ? null : directedStringGraph;
+        startWorker(new SwingWorker<GraphDiff<String>, Void>() {
+            private DirectedStringGraph graph;
+            private Graph<String, MyEdge> g; // Set instead of the diff when there is no graph on screen
+
+            @Override
+            protected GraphDiff<String> doInBackground() {
+                graph = rows.toGraph();
+                if (isCancelled()) {
+                    return null;
+                }
+                graph.freeze();
+                if (shownGraph == null) {
+                    g = convertToJUNGGraph(graph);
+                    return null;
+                }
+                return GraphDiff.between(shownGraph, graph);
+            }
+
+            @Override
+            protected void done() {
+                if (!finishWorker(this) || isCancelled()) {
+                    return;
+                }
+                try {
+                    GraphDiff<String> diff = get();
+                    // Shown graph may have been reset while this ran
+                    if (diff != null && displayedGraph == null) {
+                        diff = null;
+                        g = convertToJUNGGraph(graph);
+                    }
+                    directedStringGraph = graph;
+                    if (diff == null) {
+                        addGraphVisualisation(g);
+                    } else {
+                        updateGraphVisualisation(diff);
+                    }
+                    CardLayout layout = (CardLayout) graphVisualisationCards.getLayout();
+                    layout.show(graphVisualisationCards, "GraphVisual");
+                    graphVisualisationCards.setVisible(true);
+                    graphPageContainer.repaint();
+                    graphPageContainer.revalidate();
+                } catch (ExecutionException error) {
+                    showGraphError(error.getCause());
+                } catch (InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, null);
     }
 
     // Sets up the graph visualiser
-    private void addGraphVisualisation() {
-        Graph<String, MyEdge> g = convertToJUNGGraph(this.directedStringGraph);
-        VisualizationViewer<String, MyEdge> vv = createVisualizationViewer(g);
-        GraphZoomScrollPane graphScrollPane = new GraphZoomScrollPane(vv);
+    private void addGraphVisualisation(Graph<String, MyEdge> g) {
+        clearGraphVisualisation();
+        displayedGraph = g;
+        graphViewer = createVisualizationViewer(g, new ProgressiveLayout<>(g));
+        graphScrollPane = new GraphZoomScrollPane(graphViewer);
         graphVisualContainer.add(graphScrollPane, BorderLayout.NORTH);
         
         addGraphAlgorithmFunction();
     }
 
+    // Applies diff to the graph on screen. Vertices keep their places and only new ones need laying out, see
+    // ProgressiveLayout. The viewer (and its zoom) is only replaced if the graph crossed the level of detail limits
+    @SuppressWarnings("unchecked")
+    private void updateGraphVisualisation(GraphDiff<String> diff) {
+        // Results were for the old graph
+        algorithmResultContainer.removeAll();
+        graphVisualContainer.remove(algorithmResultContainer);
+        if (diff.isEmpty()) {
+            return;
+        }
+        ProgressiveLayout<String, MyEdge> previous = (ProgressiveLayout<String, MyEdge>) graphViewer.getGraphLayout();
+        boolean detailed = isDetailed(displayedGraph);
+        previous.stop();
+        diff.applyTo(displayedGraph);
+        ProgressiveLayout<String, MyEdge> layout = new ProgressiveLayout<>(displayedGraph, previous);
+        if (detailed == isDetailed(displayedGraph)) {
+            layout.setSize(previous.getSize());
+            graphViewer.setGraphLayout(layout);
+            if (graphViewer.isShowing()) {
+                layout.start();
+            }
+        } else {
+            graphVisualContainer.remove(graphScrollPane);
+            graphViewer = createVisualizationViewer(displayedGraph, layout);
+            graphScrollPane = new GraphZoomScrollPane(graphViewer);
+            graphVisualContainer.add(graphScrollPane, BorderLayout.NORTH);
+        }
+    }
+
+    // Removes the graph on screen, if any. Its layout stops once the viewer is no longer showing
+    private void clearGraphVisualisation() {
+        graphVisualContainer.removeAll();
+        displayedGraph = null;
+        graphViewer = null;
+        graphScrollPane = null;
+    }
+
+    private static boolean isDetailed(Graph<String, MyEdge> g) {
+        return g.getVertexCount() <= DETAILED_VERTEX_LIMIT && g.getEdgeCount() <= DETAILED_EDGE_LIMIT;
+    }
+
     // Converts DirectedStringGraph to JUNG Graph
     private Graph<String, MyEdge> convertToJUNGGraph(DirectedStringGraph graph) {
         Graph<String, MyEdge> g = new DirectedSparseGraph<>();
@@ -300,7 +472,7 @@ public class GraphGui {
             g.addVertex(vertexName);
         }
         List<List<MyEdge>> adjListNodes = graph.getAdjList();
-        for (int nodeId = 0; nodeId < graph.vertexNum; nodeId++) {
+        for (int nodeId = 0; nodeId < graph.getLength(); nodeId++) {
             List<MyEdge> adjListEdges = adjListNodes.get(nodeId);
             for (int neighNum = 0; neighNum < adjListEdges.size(); neighNum++) {
                 MyEdge neighEdge = adjListEdges.get(neighNum);
@@ -311,26 +483,55 @@ public class GraphGui {
         return g;
     }
 
-    // Creates and returns visualisation viewer
-    private VisualizationViewer<String, MyEdge> createVisualizationViewer(Graph<String, MyEdge> g) {
-        Layout<String, MyEdge> layout = new FRLayout<String, MyEdge>(g);
+    // Creates and returns visualisation viewer. The layout runs on a worker thread while the viewer is showing
+    // (see ProgressiveLayout), so vertices spread out on screen instead of the EDT waiting for the final layout
+    @SuppressWarnings("unchecked")
+    private VisualizationViewer<String, MyEdge> createVisualizationViewer(Graph<String, MyEdge> g, ProgressiveLayout<String, MyEdge> layout) {
         VisualizationViewer<String, MyEdge> vv = new VisualizationViewer<String, MyEdge>(layout, new Dimension(500,500));
-        vv.getRenderContext().setVertexLabelTransformer(new Transformer<String, String>() {
-            @Override
-            public String transform(String arg0) {
-                return arg0;
-            }
-        });
-        vv.getRenderContext().setVertexFontTransformer(new Transformer<String,Font>() {
-            @Override
-            public Font transform(String arg0) {
-                return new Font("Arial", Font.BOLD, 14);
-            }
-        });
-        vv.getRenderContext().setEdgeLabelTransformer(new Transformer<MyEdge, String>() {
+        if (isDetailed(g)) {
+            vv.getRenderContext().setVertexLabelTransformer(new Transformer<String, String>() {
+                @Override
+                public String transform(String arg0) {
+                    return arg0;
+                }
+            });
+            vv.getRenderContext().setVertexFontTransformer(new Transformer<String,Font>() {
+                @Override
+                public Font transform(String arg0) {
+                    return VERTEX_FONT;
+                }
+            });
+            vv.getRenderContext().setEdgeLabelTransformer(new Transformer<MyEdge, String>() {
+                @Override
+                public String transform(MyEdge arg0) {
+                    return arg0.getWeight().toString();
+                }
+            });
+        } else {
+            // Level of detail for large graphs: laying out label text is most of the cost of a frame, and labels
+            // overlap into noise at this size anyway. Small vertices and straight edges keep the shape readable
+            vv.getRenderer().setVertexLabelRenderer(new Renderer.VertexLabel.NOOP());
+            vv.getRenderer().setEdgeLabelRenderer(new Renderer.EdgeLabel.NOOP());
+            vv.getRenderContext().setEdgeShapeTransformer(new EdgeShape.Line<String, MyEdge>());
+            vv.getRenderContext().setVertexShapeTransformer(new Transformer<String, Shape>() {
+                @Override
+                public Shape transform(String arg0) {
+                    return SMALL_VERTEX;
+                }
+            });
+        }
+        vv.addHierarchyListener(new HierarchyListener() {
             @Override
-            public String transform(MyEdge arg0) {
-                return arg0.getWeight().toString();
+            public void hierarchyChanged(HierarchyEvent e) {
+                if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                    // The viewer's current layout, which updateGraphVisualisation may have replaced
+                    ProgressiveLayout<String, MyEdge> layout = (ProgressiveLayout<String, MyEdge>) vv.getGraphLayout();
+                    if (vv.isShowing()) {
+                        layout.start();
+                    } else {
+                        layout.stop();
+                    }
+                }
             }
         });
         DefaultModalGraphMouse<String, MyEdge> gm = new DefaultModalGraphMouse<>();
@@ -409,43 +610,80 @@ public class GraphGui {
         
     }
 
+    // Runs the selected algorithm on a background worker, then shows its result on the EDT
     private void insertAlgorithmResult() {
         algorithmResultContainer.removeAll();
         graphVisualContainer.add(algorithmResultContainer, BorderLayout.SOUTH);
-        try {
-            String algorithmCommand = radioAlgorithmGroup.getSelection().getActionCommand();
-            switch (algorithmCommand) {
-                case "Topological":
-                    List<String> topologicalResult = directedStringGraph.topologicalSort();
-                    JTextArea topologicalString = new JTextArea(topologicalResult.toString());
-                    topologicalString.setFont(new Font("Arial", Font.BOLD, 24));
-                    topologicalString.setLineWrap(true);
-                    topologicalString.setEditable(false);
-                    algorithmResultContainer.add(topologicalString);
-                    break;
-                case "Dijkstra":
-                    Graph<String, MyEdge> dijkstraGraph = convertToJUNGGraph((DirectedStringGraph) directedStringGraph.dijkstra(userInputFstField.getText()));
-                    VisualizationViewer<String, MyEdge> vv = createVisualizationViewer(dijkstraGraph);
-                    GraphZoomScrollPane dijkstraScrollPane = new GraphZoomScrollPane(vv);
-                    algorithmResultContainer.add(dijkstraScrollPane);
-                    break;
-                case "Max Flow":
-                    Integer maxFlow = directedStringGraph.fordFulkersonMaxFlow(userInputFstField.getText(), userInputSndField.getText());
-                    JTextArea maxFlowString = new JTextArea(maxFlow.toString());
-                    maxFlowString.setFont(new Font("Arial", Font.BOLD, 24));
-                    maxFlowString.setLineWrap(true);
-                    maxFlowString.setEditable(false);
-                    algorithmResultContainer.add(maxFlowString);
-                    break;
-                default:
-                    throw new Exception("Algorithm/command not implemented!");
-            }
-        } catch (Exception error) {
-            String errorString = error.toString();
-            algorithmResultContainer.add(new JLabel(errorString, SwingConstants.CENTER));
-        }
         algorithmResultContainer.revalidate();
         algorithmResultContainer.repaint();
+        // Inputs are read here, as Swing components may only be touched on the EDT
+        String algorithmCommand = radioAlgorithmGroup.getSelection().getActionCommand();
+        String fstInput = userInputFstField.getText();
+        String sndInput = userInputSndField.getText();
+        DirectedStringGraph graph = directedStringGraph;
+        QueryProgress progress = new QueryProgress();
+        startWorker(new SwingWorker<Object, Void>() {
+            @Override
+            protected Object doInBackground() throws Exception {
+                return runAlgorithm(algorithmCommand, graph, fstInput, sndInput, progress);
+            }
+
+            @Override
+            protected void done() {
+                if (!finishWorker(this)) {
+                    return;
+                }
+                try {
+                    showAlgorithmResult(algorithmCommand, get());
+                } catch (CancellationException error) {
+                    algorithmResultContainer.add(new JLabel("Algorithm cancelled", SwingConstants.CENTER));
+                } catch (ExecutionException error) {
+                    String errorString = error.getCause().toString();
+                    algorithmResultContainer.add(new JLabel(errorString, SwingConstants.CENTER));
+                } catch (InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                }
+                algorithmResultContainer.revalidate();
+                algorithmResultContainer.repaint();
+            }
+        }, progress);
+    }
+
+    // Runs algorithm off the EDT, reporting to progress (which also cancels it). Dijkstra's tree is converted to
+    // a JUNG graph here too, leaving only the components to create on the EDT
+    private Object runAlgorithm(String algorithmCommand, DirectedStringGraph graph, String fstInput, String sndInput, QueryProgress progress) throws Exception {
+        switch (algorithmCommand) {
+            case "Topological":
+                return graph.measure(GraphMethods::topologicalSort, progress).getResult();
+            case "Dijkstra":
+                DirectedWeightedGraph<String> dijkstraTree = graph.measure(g -> g.dijkstra(fstInput), progress).getResult();
+                return convertToJUNGGraph((DirectedStringGraph) dijkstraTree);
+            case "Max Flow":
+                return graph.measure(g -> g.fordFulkersonMaxFlow(fstInput, sndInput), progress).getResult();
+            default:
+                throw new Exception("Algorithm/command not implemented!");
+        }
+    }
+
+    // Adds result of runAlgorithm to the result container
+    @SuppressWarnings("unchecked")
+    private void showAlgorithmResult(String algorithmCommand, Object result) {
+        switch (algorithmCommand) {
+            case "Dijkstra":
+                Graph<String, MyEdge> tree = (Graph<String, MyEdge>) result;
+                VisualizationViewer<String, MyEdge> vv = createVisualizationViewer(tree, new ProgressiveLayout<>(tree));
+                GraphZoomScrollPane dijkstraScrollPane = new GraphZoomScrollPane(vv);
+                algorithmResultContainer.add(dijkstraScrollPane);
+                break;
+            default:
+                // Topological order or max flow value
+                JTextArea resultString = new JTextArea(result.toString());
+                resultString.setFont(new Font("Arial", Font.BOLD, 24));
+                resultString.setLineWrap(true);
+                resultString.setEditable(false);
+                algorithmResultContainer.add(resultString);
+                break;
+        }
     }
 
     // Sets up graph algorithm user input cards
@@ -491,25 +729,38 @@ public class GraphGui {
         }
     }
 
-    // Container class for edge connection + weight
-    private class EdgeJTextField {
-        JTextField neighField;
-        JTextField weightField;
-        public EdgeJTextField(JTextField neighField, JTextField weightField) {
-            this.neighField = neighField;
-            this.weightField = weightField;
+    // Pastes and drops edge lists into the table, appending their rows, and copies selected rows as an edge list
+    private class EdgeListTransferHandler extends TransferHandler {
+        @Override
+        public int getSourceActions(JComponent c) {
+            return COPY;
+        }
+
+        @Override
+        protected Transferable createTransferable(JComponent c) {
+            int[] rows = graphTable.getSelectedRows();
+            return rows.length == 0 ? null : new StringSelection(graphTableModel.toEdgeList(rows));
         }
 
-        public String getNeigh() {
-            return neighField.getText();
+        @Override
+        public boolean canImport(TransferSupport support) {
+            return support.isDataFlavorSupported(DataFlavor.stringFlavor);
         }
 
-        public Integer getWeight() {
-            int weight = 1;
-            if (!weightField.getText().isEmpty()) {
-                weight = Integer.parseInt(weightField.getText());
+        @Override
+        public boolean importData(TransferSupport support) {
+            if (!canImport(support)) {
+                return false;
+            }
+            try {
+                String text = (String) support.getTransferable().getTransferData(DataFlavor.stringFlavor);
+                stopTableEditing();
+                graphTableModel.addRows(GraphTableModel.parseEdgeList(new StringReader(text)));
+                return true;
+            } catch (IllegalArgumentException | UnsupportedFlavorException | IOException error) {
+                showGraphError(error);
+                return false;
             }
-            return weight;
         }
     }
 
@@ -1,6 +1,9 @@
 package graph.gui;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public interface GraphMethods<T extends Object> {
     /* Topological sort
@@ -9,16 +12,80 @@ public interface GraphMethods<T extends Object> {
      * Throws exception if cycle detected
     */
     public List<T> topologicalSort();
+    /* Topological sort with levels
+     * 
+     * Returns vertices in topological order along with each vertex's level (longest path ending at it).
+     * parallel processes each level across cores; its order lists levels in turn with ids ascending inside one.
+     * Throws exception if cycle detected
+    */
+    public TopologicalOrder<T> topologicalOrder(boolean parallel);
     /* Dijkstra
      * 
      * Returns DirectedWeightedGraph of dijkstra graph.
      * Throws exception if source node doesn't exist
     */
     public DirectedWeightedGraph<T> dijkstra(T source);
+    /* Dijkstra using given engine
+     * 
+     * Returns DirectedWeightedGraph of dijkstra graph. All engines give the same distances.
+     * Throws exception if source node doesn't exist
+    */
+    public DirectedWeightedGraph<T> dijkstra(T source, ShortestPathEngine engine);
+    /* Dijkstra
+     * 
+     * Returns shortest path tree of source, which answers distance/path queries without building a graph.
+     * Throws exception if source node doesn't exist
+    */
+    public ShortestPathTree<T> shortestPathTree(T source);
+    /* Dijkstra using given engine
+     * 
+     * Returns shortest path tree of source. All engines give the same distances.
+     * Throws exception if source node doesn't exist
+    */
+    public ShortestPathTree<T> shortestPathTree(T source, ShortestPathEngine engine);
+    /* Multi-source Dijkstra
+     * 
+     * Runs Dijkstra from every source in parallel, passing each shortest path tree to consumer as soon as it's done.
+     * consumer is called from several threads at once and trees arrive in no particular order.
+     * Throws exception if a source node doesn't exist
+    */
+    public void shortestPathTrees(Collection<T> sources, Consumer<ShortestPathTree<T>> consumer);
+    /* All pairs shortest paths
+     * 
+     * Returns matrix where [i][j] is distance from vertex id i to vertex id j (ShortestPathTree.UNREACHABLE if none).
+     * Throws exception if graph is too large for a dense matrix
+    */
+    public long[][] allPairsDistances();
+    /* Bidirectional Dijkstra
+     * 
+     * Returns shortest path from source to target, stopping as soon as both searches meet.
+     * Throws exception if source or target node doesn't exist
+    */
+    public ShortestPath<T> shortestPath(T source, T target);
     /* Max flow using Ford-Fulkerson algorithm
      * 
      * Returns max flow integer of graph.
      * Throws exception if source node doesn't exist
     */
-    public int fordFulkersonMaxFlow(T source, T sink);    
+    public int fordFulkersonMaxFlow(T source, T sink);
+    /* Max flow using given algorithm
+     * 
+     * Returns max flow integer of graph.
+     * Throws exception if source or sink node doesn't exist
+    */
+    public int maxFlow(T source, T sink, MaxFlowAlgorithm algorithm);
+    /* Measured query
+     * 
+     * Runs query with a view of this graph whose methods record their work (time, vertices settled, edges relaxed,
+     * heap operations, augmenting paths, BFS passes, peak scratch memory), and returns its result with those stats.
+     * Calls made directly on the graph record nothing, at no measurable cost
+    */
+    public <R> Measured<R> measure(Function<GraphMethods<T>, R> query);
+
+    /* Measured query with progress
+     * 
+     * Same as measure, also reporting the work done to progress while query runs. Once progress is cancelled the
+     * running algorithm throws CancellationException, which measure passes on
+    */
+    public <R> Measured<R> measure(Function<GraphMethods<T>, R> query, QueryProgress progress);
 }
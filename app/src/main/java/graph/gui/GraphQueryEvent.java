@@ -0,0 +1,41 @@
+package graph.gui;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/* JFR event covering one GraphMethods call on a snapshot (which every graph's calls end up in).
+ *  Off unless enabled by a settings profile (see graph-gui.jfc). Fields are only filled in once shouldCommit()
+ *  says the event will be recorded.
+ */
+@Name("graph.gui.GraphQuery")
+@Label("Graph Query")
+@Category({"Graph GUI", "Graph"})
+@Description("Algorithm run on a graph")
+@Enabled(false)
+@StackTrace(false)
+final class GraphQueryEvent extends jdk.jfr.Event {
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Source")
+    @Description("Source vertex, or number of sources for multi-source queries")
+    String source;
+
+    @Label("Sink")
+    @Description("Target or sink vertex, if the algorithm has one")
+    String sink;
+
+    @Label("Vertices")
+    long vertexCount;
+
+    @Label("Edges")
+    long edgeCount;
+
+    @Label("Result Size")
+    @Description("Vertices in the order, tree or path returned, rows of a distance matrix, or the max flow value")
+    long resultSize;
+}
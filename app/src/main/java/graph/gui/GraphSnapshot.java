@@ -0,0 +1,378 @@
+package graph.gui;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/* Immutable version of a DirectedWeightedGraph, made by DirectedWeightedGraph.freeze().
+ *  Holds the frozen CsrGraph and its own copy of the name table, and shares nothing mutable with the graph it
+ *  came from, so later edits never show up here. Every field is final (the contraction hierarchy is published
+ *  through a volatile), so a snapshot can be handed to any number of threads and queried without locks.
+ *  Each query allocates its own scratch (or uses a thread local one) and only reads the CSR arrays.
+ */
+public final class GraphSnapshot<T> implements GraphMethods<T> {
+    // V x V longs, 16384 vertices is already a 2GB matrix
+    private static final int MAX_ALL_PAIRS_VERTICES = 16384;
+    private final long version;
+    private final CsrGraph graph;
+    private final VertexDictionary<T> vertices;
+    // Makes empty graphs of the original's concrete type, used to materialise algorithm results
+    private final Supplier<DirectedWeightedGraph<T>> graphFactory;
+    // Optional preprocessing for shortestPath. Built at most once, readers see either null or a complete one
+    private volatile ContractionHierarchy contractionHierarchy;
+
+    // vertices must not change afterwards, e.g. a VertexDictionary.frozenCopy()
+    GraphSnapshot(long version, CsrGraph graph, VertexDictionary<T> vertices, Supplier<DirectedWeightedGraph<T>> graphFactory) {
+        if (vertices.size() != graph.vertexNum) {
+            throw new IllegalArgumentException("Vertex dictionary and graph must have the same number of vertices");
+        }
+        this.version = version;
+        this.graph = graph;
+        this.vertices = vertices;
+        this.graphFactory = graphFactory;
+    }
+
+    // Number of changes made to the original graph before this snapshot was taken
+    public long getVersion() {
+        return version;
+    }
+
+    public int getLength() {
+        return graph.vertexNum;
+    }
+
+    public CsrGraph getCsr() {
+        return graph;
+    }
+
+    public boolean nodeExists(T node) {
+        return vertices.idOf(node) >= 0;
+    }
+
+    // Returns id of node, or -1 if it doesn't exist
+    int idOf(T node) {
+        return vertices.idOf(node);
+    }
+
+    T nameOf(int id) {
+        return vertices.nameOf(id);
+    }
+
+    VertexDictionary<T> getVertexDictionary() {
+        return vertices;
+    }
+
+    DirectedWeightedGraph<T> newEmptyGraph() {
+        return graphFactory.get();
+    }
+
+    @Override
+    public List<T> topologicalSort() {
+        return topologicalOrder(false).getOrder();
+    }
+
+    @Override
+    public TopologicalOrder<T> topologicalOrder(boolean parallel) {
+        return topologicalOrder(parallel, QueryStats.DISABLED);
+    }
+
+    private TopologicalOrder<T> topologicalOrder(boolean parallel, QueryStats stats) {
+        GraphQueryEvent event = new GraphQueryEvent();
+        event.begin();
+        int[] level = new int[graph.vertexNum];
+        stats.expectWork(graph.vertexNum);
+        int[] order = parallel
+            ? TopologicalSort.sortParallel(graph, ForkJoinPool.commonPool(), level, stats)
+            : TopologicalSort.sort(graph, level, stats);
+        if (event.shouldCommit()) {
+            commit(event, parallel ? "PARALLEL_TOPOLOGICAL_SORT" : "TOPOLOGICAL_SORT", null, null, order.length);
+        }
+        return new TopologicalOrder<>(this, order, level);
+    }
+
+    @Override
+    public ShortestPathTree<T> shortestPathTree(T source) {
+        return shortestPathTree(source, ShortestPathEngine.DIJKSTRA);
+    }
+
+    @Override
+    public ShortestPathTree<T> shortestPathTree(T source, ShortestPathEngine engine) {
+        return shortestPathTree(source, engine, QueryStats.DISABLED);
+    }
+
+    private ShortestPathTree<T> shortestPathTree(T source, ShortestPathEngine engine, QueryStats stats) {
+        if (!nodeExists(source)) {
+            throw new IllegalArgumentException("Source node invalid");
+        }
+        GraphQueryEvent event = new GraphQueryEvent();
+        event.begin();
+        long[] dist = new long[graph.vertexNum];
+        int[] parent = new int[graph.vertexNum];
+        int sourceId = idOf(source);
+        stats.expectWork(graph.vertexNum);
+        switch (engine) {
+            case DIJKSTRA:
+                long scratch = Dijkstra.scratchBytes(graph.vertexNum);
+                stats.allocateScratch(scratch);
+                new Dijkstra(graph.vertexNum).run(graph, sourceId, dist, parent, stats);
+                stats.releaseScratch(scratch);
+                break;
+            case DELTA_STEPPING:
+                DeltaStepping.run(graph, sourceId, ForkJoinPool.commonPool(), dist, parent, stats);
+                break;
+            default:
+                throw new IllegalArgumentException("Shortest path engine not implemented!");
+        }
+        ShortestPathTree<T> tree = new ShortestPathTree<>(this, sourceId, dist, parent);
+        if (event.shouldCommit()) {
+            commit(event, engine.name(), source, null, tree.reachableCount());
+        }
+        return tree;
+    }
+
+    @Override
+    public void shortestPathTrees(Collection<T> sources, Consumer<ShortestPathTree<T>> consumer) {
+        shortestPathTrees(sources, consumer, QueryStats.DISABLED);
+    }
+
+    private void shortestPathTrees(Collection<T> sources, Consumer<ShortestPathTree<T>> consumer, QueryStats stats) {
+        int[] sourceIds = new int[sources.size()];
+        int i = 0;
+        for (T source : sources) {
+            if (!nodeExists(source)) {
+                throw new IllegalArgumentException(String.format("Source node %s invalid", source));
+            }
+            sourceIds[i++] = idOf(source);
+        }
+        GraphQueryEvent event = new GraphQueryEvent();
+        event.begin();
+        stats.expectWork((long) graph.vertexNum * sourceIds.length);
+        MultiSourceDijkstra.run(graph, sourceIds, ForkJoinPool.commonPool(), (sourceId, dist, parent) -> {
+            consumer.accept(new ShortestPathTree<>(this, sourceId, dist.clone(), parent.clone()));
+        }, stats);
+        if (event.shouldCommit()) {
+            commit(event, "MULTI_SOURCE_DIJKSTRA", sourceIds.length, null, sourceIds.length);
+        }
+    }
+
+    @Override
+    public long[][] allPairsDistances() {
+        return allPairsDistances(QueryStats.DISABLED);
+    }
+
+    private long[][] allPairsDistances(QueryStats stats) {
+        if (graph.vertexNum > MAX_ALL_PAIRS_VERTICES) {
+            throw new IllegalArgumentException(String.format("All pairs matrix limited to %d vertices", MAX_ALL_PAIRS_VERTICES));
+        }
+        GraphQueryEvent event = new GraphQueryEvent();
+        event.begin();
+        stats.expectWork((long) graph.vertexNum * graph.vertexNum);
+        long[][] res = MultiSourceDijkstra.allPairs(graph, ForkJoinPool.commonPool(), stats);
+        if (event.shouldCommit()) {
+            commit(event, "ALL_PAIRS", null, null, res.length);
+        }
+        return res;
+    }
+
+    @Override
+    public DirectedWeightedGraph<T> dijkstra(T source) {
+        return shortestPathTree(source).toGraph();
+    }
+
+    @Override
+    public DirectedWeightedGraph<T> dijkstra(T source, ShortestPathEngine engine) {
+        return shortestPathTree(source, engine).toGraph();
+    }
+
+    @Override
+    public ShortestPath<T> shortestPath(T source, T target) {
+        return shortestPath(source, target, QueryStats.DISABLED);
+    }
+
+    private ShortestPath<T> shortestPath(T source, T target, QueryStats stats) {
+        if (!nodeExists(source) || !nodeExists(target)) {
+            throw new IllegalArgumentException("'Source' AND 'Target' node must exist");
+        }
+        int sourceId = idOf(source);
+        int targetId = idOf(target);
+        GraphQueryEvent event = new GraphQueryEvent();
+        event.begin();
+        ShortestPath<T> path;
+        String algorithm;
+        ContractionHierarchy hierarchy = contractionHierarchy;
+        if (hierarchy != null) {
+            ContractionHierarchy.Query query = hierarchy.query();
+            long distance = query.run(sourceId, targetId, stats);
+            path = toShortestPath(distance, query.unpackPath());
+            algorithm = "CONTRACTION_HIERARCHY";
+        } else {
+            // Runs on this thread's shared scratch, so a query only pays for the vertices it touches
+            BidirectionalDijkstra search = BidirectionalDijkstra.forThread(graph.vertexNum);
+            long scratch = BidirectionalDijkstra.scratchBytes(graph.vertexNum);
+            stats.allocateScratch(scratch);
+            // Each side can settle every vertex
+            stats.expectWork(2L * graph.vertexNum);
+            long distance = search.run(graph, sourceId, targetId, stats);
+            path = toShortestPath(distance, search.path());
+            stats.releaseScratch(scratch);
+            algorithm = "BIDIRECTIONAL_DIJKSTRA";
+        }
+        if (event.shouldCommit()) {
+            commit(event, algorithm, source, target, path.getVertices().size());
+        }
+        return path;
+    }
+
+    // Builds a contraction hierarchy so later shortestPath queries only search upwards in it.
+    // Queries running meanwhile keep using bidirectional Dijkstra until it's ready
+    public synchronized void prepareContractionHierarchy() {
+        if (contractionHierarchy == null) {
+            contractionHierarchy = ContractionHierarchy.build(graph);
+        }
+    }
+
+    public boolean hasContractionHierarchy() {
+        return contractionHierarchy != null;
+    }
+
+    private ShortestPath<T> toShortestPath(long distance, int[] pathIds) {
+        List<T> path = new ArrayList<>(pathIds.length);
+        for (int id : pathIds) {
+            path.add(nameOf(id));
+        }
+        return new ShortestPath<>(distance, path);
+    }
+
+    @Override
+    public int fordFulkersonMaxFlow(T source, T sink) {
+        return maxFlow(source, sink, MaxFlowAlgorithm.FORD_FULKERSON);
+    }
+
+    @Override
+    public int maxFlow(T source, T sink, MaxFlowAlgorithm algorithm) {
+        return maxFlow(source, sink, algorithm, QueryStats.DISABLED);
+    }
+
+    private int maxFlow(T source, T sink, MaxFlowAlgorithm algorithm, QueryStats stats) {
+        if (!nodeExists(source) || !nodeExists(sink)) {
+            throw new IllegalArgumentException("'Source' AND 'Sink' node must exist");
+        }
+        if (source.equals(sink)) {
+            throw new IllegalArgumentException("Source and Sink cannot be the same!");
+        }
+        GraphQueryEvent event = new GraphQueryEvent();
+        event.begin();
+        ResidualGraph residual = new ResidualGraph(graph);
+        long maxFlow = residual.maxFlow(idOf(source), idOf(sink), algorithm, stats);
+        if (event.shouldCommit()) {
+            commit(event, algorithm.name(), source, sink, maxFlow);
+        }
+        return Math.toIntExact(maxFlow);
+    }
+
+    private void commit(GraphQueryEvent event, String algorithm, Object source, Object sink, long resultSize) {
+        event.algorithm = algorithm;
+        event.source = source == null ? null : source.toString();
+        event.sink = sink == null ? null : sink.toString();
+        event.vertexCount = graph.vertexNum;
+        event.edgeCount = graph.getEdgeNum();
+        event.resultSize = resultSize;
+        event.commit();
+    }
+
+    @Override
+    public <R> Measured<R> measure(Function<GraphMethods<T>, R> query) {
+        return measure(query, new QueryStats());
+    }
+
+    @Override
+    public <R> Measured<R> measure(Function<GraphMethods<T>, R> query, QueryProgress progress) {
+        return measure(query, new QueryStats(progress));
+    }
+
+    private <R> Measured<R> measure(Function<GraphMethods<T>, R> query, QueryStats stats) {
+        long start = System.nanoTime();
+        R result = query.apply(new MeasuredView(stats));
+        stats.addWallTime(System.nanoTime() - start);
+        return new Measured<>(result, stats);
+    }
+
+    // This snapshot with every algorithm recording into stats, handed to the query passed to measure
+    private final class MeasuredView implements GraphMethods<T> {
+        private final QueryStats stats;
+
+        MeasuredView(QueryStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public List<T> topologicalSort() {
+            return topologicalOrder(false).getOrder();
+        }
+
+        @Override
+        public TopologicalOrder<T> topologicalOrder(boolean parallel) {
+            return GraphSnapshot.this.topologicalOrder(parallel, stats);
+        }
+
+        @Override
+        public DirectedWeightedGraph<T> dijkstra(T source) {
+            return shortestPathTree(source).toGraph();
+        }
+
+        @Override
+        public DirectedWeightedGraph<T> dijkstra(T source, ShortestPathEngine engine) {
+            return shortestPathTree(source, engine).toGraph();
+        }
+
+        @Override
+        public ShortestPathTree<T> shortestPathTree(T source) {
+            return shortestPathTree(source, ShortestPathEngine.DIJKSTRA);
+        }
+
+        @Override
+        public ShortestPathTree<T> shortestPathTree(T source, ShortestPathEngine engine) {
+            return GraphSnapshot.this.shortestPathTree(source, engine, stats);
+        }
+
+        @Override
+        public void shortestPathTrees(Collection<T> sources, Consumer<ShortestPathTree<T>> consumer) {
+            GraphSnapshot.this.shortestPathTrees(sources, consumer, stats);
+        }
+
+        @Override
+        public long[][] allPairsDistances() {
+            return GraphSnapshot.this.allPairsDistances(stats);
+        }
+
+        @Override
+        public ShortestPath<T> shortestPath(T source, T target) {
+            return GraphSnapshot.this.shortestPath(source, target, stats);
+        }
+
+        @Override
+        public int fordFulkersonMaxFlow(T source, T sink) {
+            return maxFlow(source, sink, MaxFlowAlgorithm.FORD_FULKERSON);
+        }
+
+        @Override
+        public int maxFlow(T source, T sink, MaxFlowAlgorithm algorithm) {
+            return GraphSnapshot.this.maxFlow(source, sink, algorithm, stats);
+        }
+
+        // Nested measurements get their own stats, and their work is left out of this one
+        @Override
+        public <R> Measured<R> measure(Function<GraphMethods<T>, R> query) {
+            return GraphSnapshot.this.measure(query);
+        }
+
+        @Override
+        public <R> Measured<R> measure(Function<GraphMethods<T>, R> query, QueryProgress progress) {
+            return GraphSnapshot.this.measure(query, progress);
+        }
+    }
+}
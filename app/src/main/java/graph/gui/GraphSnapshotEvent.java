@@ -0,0 +1,33 @@
+package graph.gui;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/* JFR event covering freezing a snapshot and writing, opening, loading or copying a stored graph.
+ *  Off unless enabled by a settings profile (see graph-gui.jfc).
+ */
+@Name("graph.gui.GraphSnapshot")
+@Label("Graph Snapshot")
+@Category({"Graph GUI", "Graph"})
+@Description("Graph frozen, written, opened, loaded or copied off the heap")
+@Enabled(false)
+@StackTrace(false)
+final class GraphSnapshotEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    @Description("freeze, write, open, load or off-heap copy")
+    String operation;
+
+    @Label("Path")
+    @Description("Graph file, for file operations")
+    String path;
+
+    @Label("Vertices")
+    long vertexCount;
+
+    @Label("Edges")
+    long edgeCount;
+}
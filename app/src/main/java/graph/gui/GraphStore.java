@@ -0,0 +1,18 @@
+package graph.gui;
+
+/* Read-only adjacency of a directed weighted graph in CSR layout, wherever its arrays live.
+ *  Out-edges of vertex v are the edge indices edgeOffset(v) (inclusive) to edgeOffset(v + 1) (exclusive).
+ *  Edge indices are 64-bit so stores outside the heap can hold more than 2^31 edges.
+ */
+public interface GraphStore {
+    int getVertexNum();
+
+    long getEdgeCount();
+
+    // Index of first out-edge of v, and for v = vertex count the total number of edges
+    long edgeOffset(int v);
+
+    int target(long e);
+
+    int weight(long e);
+}
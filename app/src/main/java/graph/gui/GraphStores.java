@@ -0,0 +1,73 @@
+package graph.gui;
+
+/* Algorithms on any GraphStore by vertex id, for graphs that only exist as a store (off-heap or mapped)
+ *  and have no name table. Results are indexed by vertex id.
+ */
+public final class GraphStores {
+    private GraphStores() {
+    }
+
+    /**
+     * Dijkstra from source. Weights must be non-negative
+     * @param graph graph to search
+     * @param source source vertex id
+     * @param parent filled with previous vertex on a shortest path, or -1 for source/unreachable vertices. May be null
+     * @return distance to every vertex, or ShortestPathTree.UNREACHABLE
+     */
+    public static long[] shortestDistances(GraphStore graph, int source, int[] parent) {
+        return shortestDistances(graph, source, parent, QueryStats.DISABLED);
+    }
+
+    // Same as shortestDistances, adding the work done to stats (and reporting it to stats' progress, if any)
+    public static long[] shortestDistances(GraphStore graph, int source, int[] parent, QueryStats stats) {
+        int vertexNum = graph.getVertexNum();
+        if (source < 0 || source >= vertexNum) {
+            throw new IllegalArgumentException("Source node invalid");
+        }
+        long[] dist = new long[vertexNum];
+        stats.expectWork(vertexNum);
+        long scratch = Dijkstra.scratchBytes(vertexNum);
+        stats.allocateScratch(scratch);
+        new Dijkstra(vertexNum).run(graph, source, dist, parent == null ? new int[vertexNum] : parent, stats);
+        stats.releaseScratch(scratch);
+        return dist;
+    }
+
+    // Returns vertex ids in topological order. Throws exception if cycle detected
+    public static int[] topologicalSort(GraphStore graph) {
+        return topologicalSort(graph, QueryStats.DISABLED);
+    }
+
+    // Same as topologicalSort, adding the work done to stats (and reporting it to stats' progress, if any)
+    public static int[] topologicalSort(GraphStore graph, QueryStats stats) {
+        stats.expectWork(graph.getVertexNum());
+        return TopologicalSort.sort(graph, new int[graph.getVertexNum()], stats);
+    }
+
+    /**
+     * Max flow from source to sink, edge weights being capacities. The residual network is built on the heap with
+     * two int-indexed arcs per edge, so graphs of more than (2^31 - 9) / 2 edges (about 2^30) are rejected even
+     * though the store itself may hold more
+     * @param graph graph to search
+     * @param source source vertex id
+     * @param sink sink vertex id
+     * @param algorithm algorithm finding augmenting paths
+     * @return value of the max flow
+     * @throws IllegalArgumentException if source or sink is invalid, they are the same, or graph has too many edges
+     */
+    public static long maxFlow(GraphStore graph, int source, int sink, MaxFlowAlgorithm algorithm) {
+        return maxFlow(graph, source, sink, algorithm, QueryStats.DISABLED);
+    }
+
+    // Same as maxFlow, adding the work done to stats (and reporting it to stats' progress, if any)
+    public static long maxFlow(GraphStore graph, int source, int sink, MaxFlowAlgorithm algorithm, QueryStats stats) {
+        int vertexNum = graph.getVertexNum();
+        if (source < 0 || source >= vertexNum || sink < 0 || sink >= vertexNum) {
+            throw new IllegalArgumentException("'Source' AND 'Sink' node must exist");
+        }
+        if (source == sink) {
+            throw new IllegalArgumentException("Source and Sink cannot be the same!");
+        }
+        return new ResidualGraph(graph).maxFlow(source, sink, algorithm, stats);
+    }
+}
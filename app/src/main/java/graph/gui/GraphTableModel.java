@@ -0,0 +1,249 @@
+package graph.gui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import javax.swing.table.AbstractTableModel;
+
+/* Table of graph edges for the editor: one row per edge (node, neighbour, weight), or a node on its own when
+ *  the neighbour is blank. Rows are kept in three parallel arrays rather than per-row objects or components,
+ *  so a JTable showing it only ever creates renderers for the rows on screen, whatever the row count.
+ *  Edge lists are read as one edge per line, "node neighbour [weight]" separated by spaces, tabs or commas,
+ *  which is also what copying rows gives. Like every Swing model it belongs to the EDT; copy() it to use the
+ *  rows anywhere else, e.g. to build the graph in the background.
+ */
+final class GraphTableModel extends AbstractTableModel {
+    static final int NODE_COLUMN = 0;
+    static final int NEIGHBOUR_COLUMN = 1;
+    static final int WEIGHT_COLUMN = 2;
+    static final int DEFAULT_WEIGHT = 1;
+    private static final String[] COLUMN_NAMES = {"Node", "Neighbour", "Weight"};
+
+    private String[] nodes = new String[16];
+    private String[] neighbours = new String[16];
+    private int[] weights = new int[16];
+    private int rowNum = 0;
+
+    @Override
+    public int getRowCount() {
+        return rowNum;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == WEIGHT_COLUMN ? Integer.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return true;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case NODE_COLUMN:
+                return nodes[row];
+            case NEIGHBOUR_COLUMN:
+                return neighbours[row];
+            default:
+                return weights[row];
+        }
+    }
+
+    // Blank weights become DEFAULT_WEIGHT, the JTable's Integer editor already refuses anything but whole numbers
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        switch (column) {
+            case NODE_COLUMN:
+                nodes[row] = value == null ? "" : value.toString().trim();
+                break;
+            case NEIGHBOUR_COLUMN:
+                neighbours[row] = value == null ? "" : value.toString().trim();
+                break;
+            default:
+                weights[row] = value == null ? DEFAULT_WEIGHT : (Integer) value;
+                break;
+        }
+        fireTableCellUpdated(row, column);
+    }
+
+    /**
+     * Adds a row at the end
+     * @param node node name, must not be blank by the time the graph is built
+     * @param neighbour neighbour name, or blank for a node without this edge
+     * @param weight edge weight, ignored without a neighbour
+     */
+    void addRow(String node, String neighbour, int weight) {
+        append(node, neighbour, weight);
+        fireTableRowsInserted(rowNum - 1, rowNum - 1);
+    }
+
+    // Adds every row of rows at the end, as one table event however many there are
+    void addRows(GraphTableModel rows) {
+        if (rows.rowNum == 0) {
+            return;
+        }
+        int first = rowNum;
+        for (int row = 0; row < rows.rowNum; row++) {
+            append(rows.nodes[row], rows.neighbours[row], rows.weights[row]);
+        }
+        fireTableRowsInserted(first, rowNum - 1);
+    }
+
+    // Removes rows at the given indices, in any order
+    void removeRows(int[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        boolean[] removed = new boolean[rowNum];
+        for (int row : rows) {
+            removed[row] = true;
+        }
+        int kept = 0;
+        for (int row = 0; row < rowNum; row++) {
+            if (!removed[row]) {
+                nodes[kept] = nodes[row];
+                neighbours[kept] = neighbours[row];
+                weights[kept] = weights[row];
+                kept++;
+            }
+        }
+        Arrays.fill(nodes, kept, rowNum, null);
+        Arrays.fill(neighbours, kept, rowNum, null);
+        rowNum = kept;
+        fireTableDataChanged();
+    }
+
+    void clear() {
+        Arrays.fill(nodes, 0, rowNum, null);
+        Arrays.fill(neighbours, 0, rowNum, null);
+        rowNum = 0;
+        fireTableDataChanged();
+    }
+
+    // Copy of the rows not attached to any table, safe to hand to another thread
+    GraphTableModel copy() {
+        GraphTableModel copy = new GraphTableModel();
+        copy.nodes = Arrays.copyOf(nodes, Math.max(rowNum, 1));
+        copy.neighbours = Arrays.copyOf(neighbours, Math.max(rowNum, 1));
+        copy.weights = Arrays.copyOf(weights, Math.max(rowNum, 1));
+        copy.rowNum = rowNum;
+        return copy;
+    }
+
+    /**
+     * Builds the graph the rows describe, packing them straight into CSR form with no per-edge objects.
+     * Vertices are every name in either column, with ids in order of first appearance. Of duplicate edges only
+     * the first is kept, as in the list constructors
+     * @return graph of the rows
+     * @throws IllegalArgumentException if a row has a blank node, or a blank node with a neighbour
+     */
+    DirectedStringGraph toGraph() {
+        StringVertexDictionary names = new StringVertexDictionary();
+        int edgeNum = 0;
+        for (int row = 0; row < rowNum; row++) {
+            if (nodes[row] == null || nodes[row].isEmpty()) {
+                throw new IllegalArgumentException(String.format("Row %d has no node", row + 1));
+            }
+            if (names.idOf(nodes[row]) < 0) {
+                names.add(nodes[row]);
+            }
+            if (hasNeighbour(row)) {
+                if (names.idOf(neighbours[row]) < 0) {
+                    names.add(neighbours[row]);
+                }
+                edgeNum++;
+            }
+        }
+        int[] from = new int[edgeNum];
+        int[] to = new int[edgeNum];
+        int[] edgeWeights = new int[edgeNum];
+        int e = 0;
+        for (int row = 0; row < rowNum; row++) {
+            if (hasNeighbour(row)) {
+                from[e] = names.idOf(nodes[row]);
+                to[e] = names.idOf(neighbours[row]);
+                edgeWeights[e] = weights[row];
+                e++;
+            }
+        }
+        return new DirectedStringGraph(names, CsrGraph.fromEdges(names.size(), from, to, edgeWeights));
+    }
+
+    /**
+     * Reads an edge list: per line "node neighbour weight", "node neighbour" (weight DEFAULT_WEIGHT) or just
+     * "node", separated by spaces, tabs or commas. Blank lines and lines starting with # are skipped
+     * @param in edge list to read, not closed
+     * @return rows read, to be added to a table with addRows
+     * @throws IllegalArgumentException naming the line, if a line has too many fields or a bad weight
+     */
+    static GraphTableModel parseEdgeList(Reader in) throws IOException {
+        GraphTableModel rows = new GraphTableModel();
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        int lineNum = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNum++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split("[\\s,]+");
+            if (fields.length > 3) {
+                throw new IllegalArgumentException(String.format("Line %d: expected node, neighbour and weight but got %d fields", lineNum, fields.length));
+            }
+            int weight = DEFAULT_WEIGHT;
+            if (fields.length == 3) {
+                try {
+                    weight = Integer.parseInt(fields[2]);
+                } catch (NumberFormatException error) {
+                    throw new IllegalArgumentException(String.format("Line %d: weight '%s' is not a whole number", lineNum, fields[2]));
+                }
+            }
+            rows.append(fields[0], fields.length > 1 ? fields[1] : "", weight);
+        }
+        return rows;
+    }
+
+    // Rows as an edge list parseEdgeList reads back, tab separated, one line each
+    String toEdgeList(int[] rows) {
+        StringBuilder res = new StringBuilder();
+        for (int row : rows) {
+            res.append(nodes[row]);
+            if (hasNeighbour(row)) {
+                res.append('\t').append(neighbours[row]).append('\t').append(weights[row]);
+            }
+            res.append('\n');
+        }
+        return res.toString();
+    }
+
+    private boolean hasNeighbour(int row) {
+        return neighbours[row] != null && !neighbours[row].isEmpty();
+    }
+
+    private void append(String node, String neighbour, int weight) {
+        if (rowNum == nodes.length) {
+            int capacity = rowNum * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            neighbours = Arrays.copyOf(neighbours, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        nodes[rowNum] = node == null ? "" : node.trim();
+        neighbours[rowNum] = neighbour == null ? "" : neighbour.trim();
+        weights[rowNum] = weight;
+        rowNum++;
+    }
+}
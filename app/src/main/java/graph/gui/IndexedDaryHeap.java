@@ -0,0 +1,153 @@
+package graph.gui;
+
+import java.util.Arrays;
+
+/* Indexed 4-ary min heap of vertex ids keyed by long priorities.
+ *  pos[v] holds the heap slot of vertex v (-1 if not in heap), which gives a real decreaseKey
+ *  instead of pushing duplicate entries. All storage is preallocated, so insert/decrease/pop
+ *  never allocate. A 4-ary heap is shallower than a binary one and its children share cache lines.
+ */
+final class IndexedDaryHeap {
+    private static final int ARITY = 4;
+
+    private final int[] heap;
+    private final int[] pos;
+    private final long[] keys;
+    private int size = 0;
+
+    IndexedDaryHeap(int capacity) {
+        heap = new int[capacity];
+        pos = new int[capacity];
+        Arrays.fill(pos, -1);
+        keys = new long[capacity];
+    }
+
+    // Memory taken by a heap of given capacity: heap, pos and keys arrays
+    static long bytesFor(int capacity) {
+        return 16L * capacity;
+    }
+
+    int capacity() {
+        return pos.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int v) {
+        return pos[v] >= 0;
+    }
+
+    long keyOf(int v) {
+        return keys[v];
+    }
+
+    long minKey() {
+        return keys[heap[0]];
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    // Adds v with given key, or lowers its key if already queued. Returns false if key was not lower
+    boolean insertOrDecrease(int v, long key) {
+        int i = pos[v];
+        if (i < 0) {
+            keys[v] = key;
+            i = size++;
+            heap[i] = v;
+            pos[v] = i;
+        } else if (key < keys[v]) {
+            keys[v] = key;
+        } else {
+            return false;
+        }
+        siftUp(i);
+        return true;
+    }
+
+    // Sets key of a queued vertex to any value, moving it up or down as needed
+    void changeKey(int v, long key) {
+        long oldKey = keys[v];
+        keys[v] = key;
+        if (key < oldKey) {
+            siftUp(pos[v]);
+        } else {
+            siftDown(pos[v]);
+        }
+    }
+
+    int pop() {
+        int min = heap[0];
+        pos[min] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    // Empties heap in O(size) so it can be reused for another query
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int v = heap[i];
+        long key = keys[v];
+        while (i > 0) {
+            int parent = (i - 1) / ARITY;
+            int u = heap[parent];
+            if (keys[u] <= key) {
+                break;
+            }
+            heap[i] = u;
+            pos[u] = i;
+            i = parent;
+        }
+        heap[i] = v;
+        pos[v] = i;
+    }
+
+    private void siftDown(int i) {
+        int v = heap[i];
+        long key = keys[v];
+        while (true) {
+            int firstChild = i * ARITY + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + ARITY, size);
+            int minChild = firstChild;
+            long minKey = keys[heap[firstChild]];
+            for (int c = firstChild + 1; c < lastChild; c++) {
+                long childKey = keys[heap[c]];
+                if (childKey < minKey) {
+                    minChild = c;
+                    minKey = childKey;
+                }
+            }
+            if (minKey >= key) {
+                break;
+            }
+            int u = heap[minChild];
+            heap[i] = u;
+            pos[u] = i;
+            i = minChild;
+        }
+        heap[i] = v;
+        pos[v] = i;
+    }
+}
@@ -0,0 +1,137 @@
+package graph.gui;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/* Graph file (see GraphFile) mapped into memory, read in place without copying it onto the heap.
+ *  Opening is O(1) whatever the file size: the OS pages sections in as they are read. The mapping stays
+ *  valid until this object is garbage collected. Reads only, so it can be shared between threads.
+ */
+public final class MappedGraph<T> implements GraphStore {
+    private final SegmentedBuffer data;
+    private final int nameKind;
+    private final int vertexNum;
+    private final long edgeNum;
+    private final long offsetsPos;
+    private final long targetsPos;
+    private final long weightsPos;
+    private final long namesPos;
+    private final long checksumPos;
+
+    MappedGraph(SegmentedBuffer data, int nameKind, int vertexNum, long edgeNum, long namesSize) {
+        this.data = data;
+        this.nameKind = nameKind;
+        this.vertexNum = vertexNum;
+        this.edgeNum = edgeNum;
+        offsetsPos = GraphFile.HEADER_SIZE;
+        targetsPos = offsetsPos + 8L * (vertexNum + 1);
+        weightsPos = targetsPos + GraphFile.padded(4L * edgeNum);
+        namesPos = weightsPos + GraphFile.padded(4L * edgeNum);
+        checksumPos = namesPos + namesSize;
+    }
+
+    long getFileSize() {
+        return checksumPos + 8;
+    }
+
+    @Override
+    public int getVertexNum() {
+        return vertexNum;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return edgeNum;
+    }
+
+    @Override
+    public long edgeOffset(int v) {
+        return data.getLong(offsetsPos + 8L * v);
+    }
+
+    @Override
+    public int target(long e) {
+        return data.getInt(targetsPos + 4 * e);
+    }
+
+    @Override
+    public int weight(long e) {
+        return data.getInt(weightsPos + 4 * e);
+    }
+
+    // Name of vertex id, decoded from the file on each call
+    @SuppressWarnings("unchecked")
+    public T nameOf(int id) {
+        if (id < 0 || id >= vertexNum) {
+            throw new IllegalArgumentException(String.format("Vertex id %d out of range", id));
+        }
+        switch (nameKind) {
+            case GraphFile.DENSE_INT_NAMES:
+                return (T) Integer.valueOf(id);
+            case GraphFile.INT_NAMES:
+                return (T) Integer.valueOf(data.getInt(namesPos + 4L * id));
+            default:
+                long start = data.getLong(namesPos + 8L * id);
+                long end = data.getLong(namesPos + 8L * (id + 1));
+                byte[] bytes = new byte[Math.toIntExact(end - start)];
+                data.get(namesPos + 8L * (vertexNum + 1) + start, bytes);
+                return (T) new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Reads the whole file and throws exception if it doesn't match the checksum written with it
+    public void verifyChecksum() throws IOException {
+        if (data.crc32(checksumPos) != data.getLong(checksumPos)) {
+            throw new IOException("Graph file checksum mismatch");
+        }
+    }
+
+    // Copies the adjacency onto the heap. Throws exception if there are too many edges for a CsrGraph
+    public CsrGraph toCsr() {
+        if (edgeNum > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Graph has too many edges for a CsrGraph");
+        }
+        int[] offsets = new int[vertexNum + 1];
+        for (int v = 0; v <= vertexNum; v++) {
+            offsets[v] = (int) edgeOffset(v);
+        }
+        int[] targets = new int[(int) edgeNum];
+        int[] weights = new int[(int) edgeNum];
+        for (int e = 0; e < edgeNum; e++) {
+            targets[e] = target(e);
+            weights[e] = weight(e);
+        }
+        return new CsrGraph(vertexNum, offsets, targets, weights);
+    }
+
+    // Verifies the checksum and loads the file into a new editable graph with the same ids and edge order
+    @SuppressWarnings("unchecked")
+    public DirectedWeightedGraph<T> toGraph() throws IOException {
+        GraphSnapshotEvent event = new GraphSnapshotEvent();
+        event.begin();
+        verifyChecksum();
+        CsrGraph csr = toCsr();
+        DirectedWeightedGraph<T> graph;
+        switch (nameKind) {
+            case GraphFile.DENSE_INT_NAMES:
+                graph = (DirectedWeightedGraph<T>) new DirectedIntGraph(new DenseIntVertexDictionary(vertexNum), csr);
+                break;
+            case GraphFile.INT_NAMES:
+                BiMapVertexDictionary<Integer> intNames = new BiMapVertexDictionary<>();
+                for (int id = 0; id < vertexNum; id++) {
+                    intNames.add((Integer) nameOf(id));
+                }
+                graph = (DirectedWeightedGraph<T>) new DirectedIntGraph(intNames, csr);
+                break;
+            default:
+                StringVertexDictionary stringNames = new StringVertexDictionary();
+                for (int id = 0; id < vertexNum; id++) {
+                    stringNames.add((String) nameOf(id));
+                }
+                graph = (DirectedWeightedGraph<T>) new DirectedStringGraph(stringNames, csr);
+                break;
+        }
+        GraphFile.commit(event, "load", null, vertexNum, edgeNum);
+        return graph;
+    }
+}
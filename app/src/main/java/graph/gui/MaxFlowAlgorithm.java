@@ -0,0 +1,9 @@
+package graph.gui;
+
+// Max flow engines selectable through GraphMethods.maxFlow
+public enum MaxFlowAlgorithm {
+    // Ford-Fulkerson with BFS augmenting paths (Edmonds-Karp), O(V E^2)
+    FORD_FULKERSON,
+    // Dinic's level graph + blocking flow, O(V^2 E) and much faster in practice
+    DINIC
+}
@@ -0,0 +1,25 @@
+package graph.gui;
+
+// Result of a query run through GraphMethods.measure, with the statistics it recorded
+public final class Measured<R> {
+    private final R result;
+    private final QueryStats stats;
+
+    Measured(R result, QueryStats stats) {
+        this.result = result;
+        this.stats = stats;
+    }
+
+    public R getResult() {
+        return result;
+    }
+
+    public QueryStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return result + " (" + stats + ")";
+    }
+}
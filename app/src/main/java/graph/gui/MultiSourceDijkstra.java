@@ -0,0 +1,94 @@
+package graph.gui;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/* Dijkstra from many sources at once on a fork-join pool.
+ *  The source list is split into chunks, and each chunk runs sequentially with one Dijkstra engine and one
+ *  pair of dist/parent arrays, so scratch is allocated per chunk rather than per source. The CsrGraph is
+ *  immutable and shared read-only between workers. Results are handed to a visitor as each source finishes
+ *  instead of being collected, so memory stays O(workers * V) however many sources there are.
+ */
+final class MultiSourceDijkstra {
+    // Chunks per worker, so work stealing can even out sources with very different search sizes
+    private static final int CHUNKS_PER_WORKER = 8;
+
+    // Receives the result of one source. Called concurrently from worker threads
+    interface SourceVisitor {
+        // dist and parent are reused for the next source once this returns, so copy anything kept
+        void visit(int sourceId, long[] dist, int[] parent);
+    }
+
+    private MultiSourceDijkstra() {
+    }
+
+    static void run(CsrGraph graph, int[] sources, ForkJoinPool pool, SourceVisitor visitor) {
+        run(graph, sources, pool, visitor, QueryStats.DISABLED);
+    }
+
+    // Same as run, adding the work of every source to stats. Scratch held by chunks running at the same time adds up
+    static void run(CsrGraph graph, int[] sources, ForkJoinPool pool, SourceVisitor visitor, QueryStats stats) {
+        if (sources.length == 0) {
+            return;
+        }
+        int chunkSize = Math.max(1, sources.length / (pool.getParallelism() * CHUNKS_PER_WORKER));
+        pool.invoke(new SourceRange(graph, sources, 0, sources.length, chunkSize, visitor, stats));
+    }
+
+    // Dense V x V distance matrix, row i = distances from vertex i. Only sensible for small graphs
+    static long[][] allPairs(CsrGraph graph, ForkJoinPool pool) {
+        return allPairs(graph, pool, QueryStats.DISABLED);
+    }
+
+    static long[][] allPairs(CsrGraph graph, ForkJoinPool pool, QueryStats stats) {
+        int vertexNum = graph.vertexNum;
+        long[][] res = new long[vertexNum][];
+        int[] sources = new int[vertexNum];
+        for (int v = 0; v < vertexNum; v++) {
+            sources[v] = v;
+        }
+        run(graph, sources, pool, (sourceId, dist, parent) -> res[sourceId] = dist.clone(), stats);
+        return res;
+    }
+
+    private static final class SourceRange extends RecursiveAction {
+        private final CsrGraph graph;
+        private final int[] sources;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final SourceVisitor visitor;
+        private final QueryStats stats;
+
+        SourceRange(CsrGraph graph, int[] sources, int from, int to, int chunkSize, SourceVisitor visitor, QueryStats stats) {
+            this.graph = graph;
+            this.sources = sources;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.visitor = visitor;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > chunkSize) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SourceRange(graph, sources, from, mid, chunkSize, visitor, stats),
+                    new SourceRange(graph, sources, mid, to, chunkSize, visitor, stats));
+                return;
+            }
+            // Heap plus the dist and parent arrays reused by every source of the chunk
+            long scratch = Dijkstra.scratchBytes(graph.vertexNum) + 12L * graph.vertexNum;
+            stats.allocateScratch(scratch);
+            Dijkstra dijkstra = new Dijkstra(graph.vertexNum);
+            long[] dist = new long[graph.vertexNum];
+            int[] parent = new int[graph.vertexNum];
+            for (int i = from; i < to; i++) {
+                dijkstra.run(graph, sources[i], dist, parent, stats);
+                visitor.visit(sources[i], dist, parent);
+            }
+            stats.releaseScratch(scratch);
+        }
+    }
+}
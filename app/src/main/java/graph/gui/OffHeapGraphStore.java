@@ -0,0 +1,117 @@
+package graph.gui;
+
+/* CSR adjacency kept outside the Java heap in direct ByteBuffer segments (see SegmentedBuffer), for graphs
+ *  too large for int[] arrays or whose arrays would make full GCs slow. Offsets are 64-bit, so more than
+ *  2^31 edges fit. The garbage collector only sees a few small buffer objects however large the graph is.
+ *  Immutable once built and safe to read from many threads.
+ */
+public final class OffHeapGraphStore implements GraphStore {
+    private final int vertexNum;
+    private final long edgeNum;
+    // (V + 1) longs
+    private final SegmentedBuffer offsets;
+    // E ints each
+    private final SegmentedBuffer targets;
+    private final SegmentedBuffer weights;
+
+    private OffHeapGraphStore(int vertexNum, long edgeNum, SegmentedBuffer offsets, SegmentedBuffer targets, SegmentedBuffer weights) {
+        this.vertexNum = vertexNum;
+        this.edgeNum = edgeNum;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    // Copies any store (e.g. a CsrGraph or MappedGraph) off the heap
+    public static OffHeapGraphStore copyOf(GraphStore graph) {
+        GraphSnapshotEvent event = new GraphSnapshotEvent();
+        event.begin();
+        Builder builder = new Builder(graph.getVertexNum(), graph.getEdgeCount());
+        for (int v = 0; v < graph.getVertexNum(); v++) {
+            for (long e = graph.edgeOffset(v); e < graph.edgeOffset(v + 1); e++) {
+                builder.addEdge(v, graph.target(e), graph.weight(e));
+            }
+        }
+        OffHeapGraphStore copy = builder.build();
+        GraphFile.commit(event, "off-heap copy", null, graph.getVertexNum(), graph.getEdgeCount());
+        return copy;
+    }
+
+    @Override
+    public int getVertexNum() {
+        return vertexNum;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return edgeNum;
+    }
+
+    @Override
+    public long edgeOffset(int v) {
+        return offsets.getLong(8L * v);
+    }
+
+    @Override
+    public int target(long e) {
+        return targets.getInt(4 * e);
+    }
+
+    @Override
+    public int weight(long e) {
+        return weights.getInt(4 * e);
+    }
+
+    /* Streams edges straight into off-heap memory sized up front.
+     *  Edges must be added grouped by source with sources in ascending order (as a CSR or a file sorted by
+     *  source gives them), so offsets are written as edges arrive and nothing is buffered on the heap.
+     */
+    public static final class Builder {
+        private final int vertexNum;
+        private final long edgeNum;
+        private final SegmentedBuffer offsets;
+        private final SegmentedBuffer targets;
+        private final SegmentedBuffer weights;
+        private long added = 0;
+        // Source of the last edge, offsets are written up to and including it
+        private int lastFrom = -1;
+
+        public Builder(int vertexNum, long edgeNum) {
+            if (vertexNum < 0 || edgeNum < 0) {
+                throw new IllegalArgumentException("Vertex and edge counts must not be negative");
+            }
+            this.vertexNum = vertexNum;
+            this.edgeNum = edgeNum;
+            offsets = SegmentedBuffer.allocateDirect(8L * (vertexNum + 1));
+            targets = SegmentedBuffer.allocateDirect(4 * edgeNum);
+            weights = SegmentedBuffer.allocateDirect(4 * edgeNum);
+        }
+
+        public void addEdge(int from, int to, int weight) {
+            if (from < Math.max(lastFrom, 0) || from >= vertexNum || to < 0 || to >= vertexNum) {
+                throw new IllegalArgumentException(String.format("Edge %d -> %d out of range or out of order", from, to));
+            }
+            if (added == edgeNum) {
+                throw new IllegalArgumentException("More edges added than the builder was sized for");
+            }
+            // Vertices between the last source and this one have no edges
+            for (int v = lastFrom + 1; v <= from; v++) {
+                offsets.putLong(8L * v, added);
+            }
+            lastFrom = from;
+            targets.putInt(4 * added, to);
+            weights.putInt(4 * added, weight);
+            added++;
+        }
+
+        public OffHeapGraphStore build() {
+            if (added != edgeNum) {
+                throw new IllegalArgumentException(String.format("Builder was sized for %d edges but %d were added", edgeNum, added));
+            }
+            for (int v = lastFrom + 1; v <= vertexNum; v++) {
+                offsets.putLong(8L * v, added);
+            }
+            return new OffHeapGraphStore(vertexNum, edgeNum, offsets, targets, weights);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package graph.gui;
+
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeListener;
+
+import edu.uci.ics.jung.algorithms.layout.AbstractLayout;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.visualization.util.ChangeEventSupport;
+import edu.uci.ics.jung.visualization.util.DefaultChangeEventSupport;
+
+/* JUNG layout whose positions come from a BarnesHutLayout iterated on its own worker thread.
+ *  The worker owns the BarnesHutLayout and every so often (at most FRAMES_PER_SECOND times a second) copies
+ *  its positions into a frame, which the EDT applies to this layout's locations before firing a change event
+ *  that makes the viewer repaint. So the EDT never waits on an iteration and only ever reads positions it set
+ *  itself. A frame isn't posted while the last one is still queued, so a busy EDT just sees fewer frames.
+ *  Vertices moved by the user (setLocation on the EDT) are queued for the worker, which moves them before its
+ *  next iteration. Being a ChangeEventSupport, the viewer uses this layout directly instead of caching it.
+ */
+final class ProgressiveLayout<V, E> extends AbstractLayout<V, E> implements ChangeEventSupport {
+    static final int FRAMES_PER_SECOND = 30;
+    private static final long FRAME_NANOS = 1_000_000_000L / FRAMES_PER_SECOND;
+    // FRLayout's default, enough for forces to settle from random positions
+    static final int MAX_ITERATIONS = 700;
+    private static final long SEED = 42;
+    // Iteration a layout continuing from a previous one starts at, cool enough that settled vertices barely move
+    // while new ones find their place
+    static final int WARM_START_ITERATION = MAX_ITERATIONS * 9 / 10;
+
+    private final ChangeEventSupport changeSupport = new DefaultChangeEventSupport(this);
+    private final List<V> vertices;
+    private final Map<V, Integer> ids = new HashMap<>();
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final ConcurrentLinkedQueue<Move> moves = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean framePending = new AtomicBoolean(false);
+    private BarnesHutLayout engine;
+    // Positions to start from when continuing a previous layout (NaN for new vertices), null to start at random
+    private double[] startX;
+    private double[] startY;
+    // Thread iterating the layout, null when stopped. A stopped worker finishes its current iteration, so the
+    // next worker joins lastWorker before its first one (on its own thread, never the EDT)
+    private volatile Thread worker;
+    private Thread lastWorker;
+
+    ProgressiveLayout(Graph<V, E> graph) {
+        super(graph);
+        vertices = new ArrayList<>(graph.getVertices());
+        for (int id = 0; id < vertices.size(); id++) {
+            ids.put(vertices.get(id), id);
+        }
+        edgeFrom = new int[graph.getEdgeCount()];
+        edgeTo = new int[graph.getEdgeCount()];
+        int e = 0;
+        for (E edge : graph.getEdges()) {
+            edgeFrom[e] = ids.get(graph.getEndpoints(edge).getFirst());
+            edgeTo[e] = ids.get(graph.getEndpoints(edge).getSecond());
+            e++;
+        }
+    }
+
+    /**
+     * Layout of graph carrying on from previous, e.g. after graph was edited. Vertices previous laid out start
+     * where it shows them and the rest next to their neighbours, so only the new parts of the picture move much.
+     * Call on the EDT, with previous stopped
+     * @param graph graph to lay out, may be the same object as previous's graph after editing
+     * @param previous layout whose positions to keep
+     */
+    ProgressiveLayout(Graph<V, E> graph, ProgressiveLayout<V, E> previous) {
+        this(graph);
+        startX = new double[vertices.size()];
+        startY = new double[vertices.size()];
+        boolean anyKnown = false;
+        for (int id = 0; id < vertices.size(); id++) {
+            V vertex = vertices.get(id);
+            // Only vertices previous knew, as transform() makes up a location for any other
+            if (previous.ids.containsKey(vertex)) {
+                Point2D location = previous.transform(vertex);
+                startX[id] = location.getX();
+                startY[id] = location.getY();
+                anyKnown = true;
+            } else {
+                startX[id] = Double.NaN;
+                startY[id] = Double.NaN;
+            }
+        }
+        if (!anyKnown) {
+            startX = null;
+            startY = null;
+        }
+    }
+
+    // Called by setSize. The first call places vertices at random (or where a previous layout had them), later ones
+    // scale the current layout
+    @Override
+    public synchronized void initialize() {
+        Dimension d = getSize();
+        if (d == null || d.width <= 0 || d.height <= 0) {
+            return;
+        }
+        if (engine == null) {
+            engine = new BarnesHutLayout(vertices.size(), edgeFrom, edgeTo, d.width, d.height, MAX_ITERATIONS, SEED);
+            if (startX != null) {
+                engine.startFrom(startX, startY, WARM_START_ITERATION);
+                startX = null;
+                startY = null;
+            }
+            for (int id = 0; id < vertices.size(); id++) {
+                super.setLocation(vertices.get(id), engine.getX(id), engine.getY(id));
+            }
+        } else {
+            moves.add(new Move(-1, d.width, d.height));
+        }
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    // Starts iterating in the background, if not done already. Call on the EDT once the layout has a size
+    synchronized void start() {
+        if (engine == null || worker != null || engine.done()) {
+            return;
+        }
+        BarnesHutLayout layout = engine;
+        Thread previous = lastWorker;
+        Thread thread = new Thread(() -> run(layout, previous), "graph-layout");
+        thread.setDaemon(true);
+        worker = thread;
+        lastWorker = thread;
+        thread.start();
+    }
+
+    // Stops the worker after its current iteration, leaving vertices where they are. start() carries on from there
+    synchronized void stop() {
+        worker = null;
+    }
+
+    boolean isDone() {
+        BarnesHutLayout current = engine;
+        return current != null && current.done();
+    }
+
+    // Also moves the vertex in the running layout. setLocation(V, double, double), used for frames, doesn't
+    @Override
+    public void setLocation(V vertex, Point2D location) {
+        super.setLocation(vertex, location);
+        Integer id = ids.get(vertex);
+        if (id != null) {
+            moves.add(new Move(id, location.getX(), location.getY()));
+        }
+    }
+
+    // Iterates layout until stopped or done, once previous (the last worker, or null) has finished
+    private void run(BarnesHutLayout layout, Thread previous) {
+        if (previous != null) {
+            try {
+                previous.join();
+            } catch (InterruptedException error) {
+                return;
+            }
+        }
+        long lastFrame = 0;
+        while (worker == Thread.currentThread() && !layout.done()) {
+            for (Move move = moves.poll(); move != null; move = moves.poll()) {
+                if (move.id == -1) {
+                    layout.setSize(move.x, move.y);
+                } else {
+                    layout.setPosition(move.id, move.x, move.y);
+                }
+            }
+            layout.step();
+            long now = System.nanoTime();
+            if (layout.done() || now - lastFrame >= FRAME_NANOS) {
+                postFrame(layout, layout.done());
+                lastFrame = now;
+            }
+        }
+    }
+
+    private void postFrame(BarnesHutLayout layout, boolean last) {
+        // Skip frames while one is still queued, except the last which must always land
+        if (!framePending.compareAndSet(false, true) && !last) {
+            return;
+        }
+        double[] xs = new double[vertices.size()];
+        double[] ys = new double[vertices.size()];
+        layout.copyPositions(xs, ys);
+        SwingUtilities.invokeLater(() -> {
+            framePending.set(false);
+            if (worker == null && !last) {
+                return;
+            }
+            for (int id = 0; id < xs.length; id++) {
+                V vertex = vertices.get(id);
+                if (!isLocked(vertex)) {
+                    setLocation(vertex, xs[id], ys[id]);
+                }
+            }
+            fireStateChanged();
+        });
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener listener) {
+        changeSupport.addChangeListener(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ChangeListener listener) {
+        changeSupport.removeChangeListener(listener);
+    }
+
+    @Override
+    public ChangeListener[] getChangeListeners() {
+        return changeSupport.getChangeListeners();
+    }
+
+    @Override
+    public void fireStateChanged() {
+        changeSupport.fireStateChanged();
+    }
+
+    // Vertex moved by the user (id -1: new layout size, x and y being width and height), for the worker to apply
+    private static final class Move {
+        final int id;
+        final double x;
+        final double y;
+
+        Move(int id, double x, double y) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package graph.gui;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Progress of queries run through GraphMethods.measure(query, progress), and the way to stop them early.
+ *  Algorithms count their work in the units they already keep for QueryStats (vertices settled, or flow found
+ *  for max flow) and report it here every REPORT_INTERVAL units, which is also when they check for
+ *  cancellation. A cancelled query throws CancellationException from its next report, so it stops after at
+ *  most a few thousand more steps and the graph is left as it was (queries only read snapshots).
+ *  Work expected is an upper bound (e.g. every vertex for a search that may reach only some), so progress can
+ *  jump to the end when a query finishes early. Safe to read and cancel from any thread.
+ */
+public final class QueryProgress {
+    // Units of work between reports, a power of 2 so loops can test it with a mask
+    static final int REPORT_INTERVAL = 1024;
+
+    private final AtomicLong workDone = new AtomicLong();
+    private final AtomicLong workExpected = new AtomicLong();
+    private volatile boolean cancelled = false;
+
+    // Makes the query stop at its next report
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getWorkDone() {
+        return workDone.get();
+    }
+
+    public long getWorkExpected() {
+        return workExpected.get();
+    }
+
+    // Work done as a fraction of work expected, from 0 to 1
+    public double getFraction() {
+        long expected = workExpected.get();
+        return expected == 0 ? 0 : Math.min(1, (double) workDone.get() / expected);
+    }
+
+    void expect(long work) {
+        workExpected.addAndGet(work);
+    }
+
+    // Adds work done and throws exception if the query was cancelled
+    void report(long work) {
+        if (cancelled) {
+            throw new CancellationException("Query cancelled");
+        }
+        if (work != 0) {
+            workDone.addAndGet(work);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d of %d%s", workDone.get(), workExpected.get(), cancelled ? " (cancelled)" : "");
+    }
+}
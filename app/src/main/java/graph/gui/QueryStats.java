@@ -0,0 +1,150 @@
+package graph.gui;
+
+/* Counters describing the work done by one or more queries, filled in by GraphMethods.measure().
+ *  Algorithms count into local variables while they run and add them here once at the end, so the inner loops
+ *  never touch this object. DISABLED ignores everything it is given, which is what every query records into
+ *  unless measured, so leaving the counting in costs a few register increments per query.
+ *  Parallel algorithms add from several workers at once, so adding is synchronized.
+ *  Scratch memory is estimated from the sizes of the arrays an algorithm allocates for its own work (heaps,
+ *  queues, residual networks), not counting the result it returns.
+ *  Stats made for measure(query, progress) also pass work on to a QueryProgress while the algorithms run (see
+ *  expectWork and reportWork), which is how long queries get progress bars and can be cancelled.
+ */
+public final class QueryStats {
+    // Records nothing, used when a query isn't measured
+    static final QueryStats DISABLED = new QueryStats(false, null);
+
+    private final boolean enabled;
+    // Null unless the query reports progress
+    private final QueryProgress progress;
+    private long wallTimeNanos = 0;
+    private long verticesSettled = 0;
+    private long edgesRelaxed = 0;
+    private long heapPushes = 0;
+    private long heapPops = 0;
+    private long augmentingPaths = 0;
+    private long bfsPasses = 0;
+    private long scratchBytes = 0;
+    private long peakScratchBytes = 0;
+
+    public QueryStats() {
+        this(true, null);
+    }
+
+    QueryStats(QueryProgress progress) {
+        this(true, progress);
+    }
+
+    private QueryStats(boolean enabled, QueryProgress progress) {
+        this.enabled = enabled;
+        this.progress = progress;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    // Vertices whose final distance or position was fixed (popped from a heap, bucket or queue)
+    public synchronized long getVerticesSettled() {
+        return verticesSettled;
+    }
+
+    // Edges (or residual arcs) looked at from a settled vertex
+    public synchronized long getEdgesRelaxed() {
+        return edgesRelaxed;
+    }
+
+    // Heap inserts and decrease-keys, or queue/bucket inserts for algorithms without a heap
+    public synchronized long getHeapPushes() {
+        return heapPushes;
+    }
+
+    public synchronized long getHeapPops() {
+        return heapPops;
+    }
+
+    public synchronized long getAugmentingPaths() {
+        return augmentingPaths;
+    }
+
+    // Breadth first searches over the residual network (one per augmenting path or level graph)
+    public synchronized long getBfsPasses() {
+        return bfsPasses;
+    }
+
+    // Most scratch memory held at once, in bytes
+    public synchronized long getPeakScratchBytes() {
+        return peakScratchBytes;
+    }
+
+    void addWallTime(long nanos) {
+        if (enabled) {
+            synchronized (this) {
+                wallTimeNanos += nanos;
+            }
+        }
+    }
+
+    void addSearch(long settled, long relaxed, long pushes, long pops) {
+        if (enabled) {
+            synchronized (this) {
+                verticesSettled += settled;
+                edgesRelaxed += relaxed;
+                heapPushes += pushes;
+                heapPops += pops;
+            }
+        }
+    }
+
+    void addFlow(long paths, long passes) {
+        if (enabled) {
+            synchronized (this) {
+                augmentingPaths += paths;
+                bfsPasses += passes;
+            }
+        }
+    }
+
+    // Adds to the work an algorithm is about to do, in the units it will report
+    void expectWork(long work) {
+        if (progress != null) {
+            progress.expect(work);
+        }
+    }
+
+    // Call every QueryProgress.REPORT_INTERVAL units of work (and with the remainder at the end). Throws
+    // CancellationException if the query was cancelled, so call it only where stopping leaves nothing half done
+    void reportWork(long work) {
+        if (progress != null) {
+            progress.report(work);
+        }
+    }
+
+    // Call with the bytes of scratch an algorithm allocates, and releaseScratch with the same once it's done
+    void allocateScratch(long bytes) {
+        if (enabled) {
+            synchronized (this) {
+                scratchBytes += bytes;
+                peakScratchBytes = Math.max(peakScratchBytes, scratchBytes);
+            }
+        }
+    }
+
+    void releaseScratch(long bytes) {
+        if (enabled) {
+            synchronized (this) {
+                scratchBytes -= bytes;
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%.3f ms, %d settled, %d relaxed, %d pushes, %d pops, %d augmenting paths, %d BFS passes, %d bytes peak scratch",
+            wallTimeNanos / 1e6, verticesSettled, edgesRelaxed, heapPushes, heapPops, augmentingPaths, bfsPasses, peakScratchBytes);
+    }
+}
@@ -0,0 +1,262 @@
+package graph.gui;
+
+import java.util.Arrays;
+
+/* Sparse residual network used by the max flow algorithms.
+ *  Every graph edge becomes a forward arc (capacity = weight) and a paired reverse arc (capacity 0),
+ *  stored CSR style so arcs of vertex v are at arcStart[v] to arcStart[v + 1] - 1, and rev[a] is the
+ *  index of the arc paired with a. Memory is O(V + E) instead of the O(V^2) of a capacity matrix.
+ *  Capacities are consumed by a run, so build a new ResidualGraph per max flow query.
+ */
+final class ResidualGraph {
+    private final int vertexNum;
+    private final int[] arcStart;
+    private final int[] to;
+    private final int[] rev;
+    private final int[] cap;
+    // Work done by the current run
+    private long bfsPasses = 0;
+    private long augmentingPaths = 0;
+    private long settled = 0;
+    private long relaxed = 0;
+    // Progress is the flow found so far. BFS passes also check for cancellation as they go
+    private QueryStats stats = QueryStats.DISABLED;
+
+    // Reads graph through GraphStore, so off-heap and mapped graphs work too. The residual network itself is
+    // on the heap and limited to 2^31 arcs
+    ResidualGraph(GraphStore graph) {
+        vertexNum = graph.getVertexNum();
+        if (graph.getEdgeCount() > (Integer.MAX_VALUE - 8) / 2) {
+            throw new IllegalArgumentException("Graph has too many edges for a residual network");
+        }
+        arcStart = new int[vertexNum + 1];
+        // Each non self-loop edge adds one arc to its tail and one to its head
+        for (int v = 0; v < vertexNum; v++) {
+            long end = graph.edgeOffset(v + 1);
+            for (long e = graph.edgeOffset(v); e < end; e++) {
+                int u = graph.target(e);
+                if (u != v) {
+                    arcStart[v + 1]++;
+                    arcStart[u + 1]++;
+                }
+            }
+        }
+        for (int v = 0; v < vertexNum; v++) {
+            arcStart[v + 1] += arcStart[v];
+        }
+        int arcNum = arcStart[vertexNum];
+        to = new int[arcNum];
+        rev = new int[arcNum];
+        cap = new int[arcNum];
+        int[] fill = new int[vertexNum];
+        System.arraycopy(arcStart, 0, fill, 0, vertexNum);
+        for (int v = 0; v < vertexNum; v++) {
+            long end = graph.edgeOffset(v + 1);
+            for (long e = graph.edgeOffset(v); e < end; e++) {
+                int u = graph.target(e);
+                if (u == v) {
+                    continue;
+                }
+                int forward = fill[v]++;
+                int backward = fill[u]++;
+                to[forward] = u;
+                to[backward] = v;
+                rev[forward] = backward;
+                rev[backward] = forward;
+                // Negative weights can't carry flow
+                cap[forward] = Math.max(graph.weight(e), 0);
+            }
+        }
+    }
+
+    long maxFlow(int source, int sink, MaxFlowAlgorithm algorithm) {
+        return maxFlow(source, sink, algorithm, QueryStats.DISABLED);
+    }
+
+    // Same as maxFlow, adding the work done to stats. The residual network counts as scratch, and relaxed edges
+    // are the arcs scanned by BFS passes
+    long maxFlow(int source, int sink, MaxFlowAlgorithm algorithm, QueryStats stats) {
+        long scratch = 4L * arcStart.length + 12L * to.length;
+        this.stats = stats;
+        stats.expectWork(flowBound(source, sink));
+        long flow;
+        switch (algorithm) {
+            case FORD_FULKERSON:
+                // parentArc and queue
+                scratch += 8L * vertexNum;
+                flow = edmondsKarp(source, sink);
+                break;
+            case DINIC:
+                // level, queue, currArc and pathArcs
+                scratch += 16L * vertexNum;
+                flow = dinic(source, sink);
+                break;
+            default:
+                throw new IllegalArgumentException("Max flow algorithm not implemented!");
+        }
+        stats.allocateScratch(scratch);
+        stats.releaseScratch(scratch);
+        stats.addSearch(settled, relaxed, 0, 0);
+        stats.addFlow(augmentingPaths, bfsPasses);
+        return flow;
+    }
+
+    // Capacity out of source or into sink, whichever is less, which no flow can exceed
+    private long flowBound(int source, int sink) {
+        long out = 0;
+        for (int a = arcStart[source]; a < arcStart[source + 1]; a++) {
+            out += cap[a];
+        }
+        long in = 0;
+        for (int a = arcStart[sink]; a < arcStart[sink + 1]; a++) {
+            // Reverse arcs at sink are paired with the forward arcs into it
+            in += cap[rev[a]];
+        }
+        return Math.min(out, in);
+    }
+
+    // Ford-Fulkerson with BFS augmenting paths (Edmonds-Karp)
+    long edmondsKarp(int source, int sink) {
+        int[] parentArc = new int[vertexNum];
+        int[] queue = new int[vertexNum];
+        long maxFlow = 0;
+        while (augmentingPathBFS(source, sink, parentArc, queue)) {
+            int currFlow = Integer.MAX_VALUE;
+            for (int v = sink; v != source; v = to[rev[parentArc[v]]]) {
+                currFlow = Math.min(currFlow, cap[parentArc[v]]);
+            }
+            for (int v = sink; v != source; v = to[rev[parentArc[v]]]) {
+                int a = parentArc[v];
+                cap[a] -= currFlow;
+                cap[rev[a]] += currFlow;
+            }
+            maxFlow += currFlow;
+            augmentingPaths++;
+            stats.reportWork(currFlow);
+        }
+        return maxFlow;
+    }
+
+    /**
+     * Breadth first search to find if augmenting path exists for Ford-Fulkerson
+     * @param source source vertex id
+     * @param sink sink vertex id
+     * @param parentArc array that holds the arc used to reach each vertex
+     * @param queue scratch array of at least vertexNum entries
+     * @return boolean if path exists from source to sink
+     */
+    private boolean augmentingPathBFS(int source, int sink, int[] parentArc, int[] queue) {
+        Arrays.fill(parentArc, -1);
+        bfsPasses++;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int popId = queue[head++];
+            if ((++settled & (QueryProgress.REPORT_INTERVAL - 1)) == 0) {
+                stats.reportWork(0);
+            }
+            relaxed += arcStart[popId + 1] - arcStart[popId];
+            for (int a = arcStart[popId]; a < arcStart[popId + 1]; a++) {
+                int neighId = to[a];
+                if (cap[a] > 0 && neighId != source && parentArc[neighId] == -1) {
+                    parentArc[neighId] = a;
+                    if (neighId == sink) {
+                        return true;
+                    }
+                    queue[tail++] = neighId;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Dinic's algorithm: BFS level graph then blocking flow, O(V^2 E) worst case
+    long dinic(int source, int sink) {
+        int[] level = new int[vertexNum];
+        int[] queue = new int[vertexNum];
+        int[] currArc = new int[vertexNum];
+        int[] pathArcs = new int[vertexNum];
+        long maxFlow = 0;
+        while (buildLevelGraph(source, sink, level, queue)) {
+            System.arraycopy(arcStart, 0, currArc, 0, vertexNum);
+            maxFlow += blockingFlow(source, sink, level, currArc, pathArcs);
+        }
+        return maxFlow;
+    }
+
+    // Labels each vertex with its BFS distance from source over arcs with spare capacity
+    private boolean buildLevelGraph(int source, int sink, int[] level, int[] queue) {
+        Arrays.fill(level, -1);
+        bfsPasses++;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        level[source] = 0;
+        while (head < tail) {
+            int popId = queue[head++];
+            if ((++settled & (QueryProgress.REPORT_INTERVAL - 1)) == 0) {
+                stats.reportWork(0);
+            }
+            relaxed += arcStart[popId + 1] - arcStart[popId];
+            for (int a = arcStart[popId]; a < arcStart[popId + 1]; a++) {
+                int neighId = to[a];
+                if (cap[a] > 0 && level[neighId] == -1) {
+                    level[neighId] = level[popId] + 1;
+                    queue[tail++] = neighId;
+                }
+            }
+        }
+        return level[sink] != -1;
+    }
+
+    // Iterative DFS over the level graph, advancing currArc past arcs that can't reach the sink
+    private long blockingFlow(int source, int sink, int[] level, int[] currArc, int[] pathArcs) {
+        long flow = 0;
+        int depth = 0;
+        int v = source;
+        while (true) {
+            if (v == sink) {
+                int bottleneck = Integer.MAX_VALUE;
+                for (int i = 0; i < depth; i++) {
+                    bottleneck = Math.min(bottleneck, cap[pathArcs[i]]);
+                }
+                int firstSaturated = -1;
+                for (int i = 0; i < depth; i++) {
+                    int a = pathArcs[i];
+                    cap[a] -= bottleneck;
+                    cap[rev[a]] += bottleneck;
+                    if (cap[a] == 0 && firstSaturated == -1) {
+                        firstSaturated = i;
+                    }
+                }
+                flow += bottleneck;
+                augmentingPaths++;
+                stats.reportWork(bottleneck);
+                // Retreat to the tail of the first saturated arc and continue from there
+                depth = firstSaturated;
+                v = depth == 0 ? source : to[pathArcs[depth - 1]];
+                continue;
+            }
+            int a = currArc[v];
+            int end = arcStart[v + 1];
+            while (a < end && (cap[a] == 0 || level[to[a]] != level[v] + 1)) {
+                a++;
+            }
+            currArc[v] = a;
+            if (a < end) {
+                pathArcs[depth++] = a;
+                v = to[a];
+                continue;
+            }
+            // Dead end, remove v from level graph and step back
+            if (depth == 0) {
+                return flow;
+            }
+            level[v] = -1;
+            depth--;
+            v = to[rev[pathArcs[depth]]];
+            currArc[v]++;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package graph.gui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/* Byte buffer addressed by 64-bit positions, made of ByteBuffer segments of SEGMENT_SIZE bytes each
+ *  (a single ByteBuffer tops out at 2GB). Segment size is a multiple of 8, so ints and longs at positions
+ *  aligned to their size never straddle two segments; byte ranges may and are copied piecewise.
+ *  Only absolute gets/puts are used, so once writing is done any number of threads can read at once.
+ */
+final class SegmentedBuffer {
+    static final int SEGMENT_SHIFT = 30;
+    static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final ByteBuffer[] segments;
+    private final long size;
+
+    private SegmentedBuffer(ByteBuffer[] segments, long size) {
+        this.segments = segments;
+        this.size = size;
+    }
+
+    // Maps size bytes of channel from position, read-only. The mapping stays valid after channel is closed
+    static SegmentedBuffer map(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer[] segments = new ByteBuffer[segmentCount(size)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            long length = Math.min(SEGMENT_SIZE, size - start);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + start, length).order(ByteOrder.BIG_ENDIAN);
+        }
+        return new SegmentedBuffer(segments, size);
+    }
+
+    // Allocates size zeroed bytes outside the Java heap, freed when the buffer is garbage collected.
+    // Uses the platform's byte order as the bytes never leave this process
+    static SegmentedBuffer allocateDirect(long size) {
+        ByteBuffer[] segments = new ByteBuffer[segmentCount(size)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            segments[i] = ByteBuffer.allocateDirect((int) Math.min(SEGMENT_SIZE, size - start)).order(ByteOrder.nativeOrder());
+        }
+        return new SegmentedBuffer(segments, size);
+    }
+
+    private static int segmentCount(long size) {
+        return Math.toIntExact((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    }
+
+    long size() {
+        return size;
+    }
+
+    int getInt(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getInt((int) (position & SEGMENT_MASK));
+    }
+
+    long getLong(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+    void putInt(long position, int value) {
+        segments[(int) (position >>> SEGMENT_SHIFT)].putInt((int) (position & SEGMENT_MASK), value);
+    }
+
+    void putLong(long position, long value) {
+        segments[(int) (position >>> SEGMENT_SHIFT)].putLong((int) (position & SEGMENT_MASK), value);
+    }
+
+    // Copies dst.length bytes starting at position into dst
+    void get(long position, byte[] dst) {
+        int copied = 0;
+        while (copied < dst.length) {
+            ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+            int offset = (int) (position & SEGMENT_MASK);
+            int length = Math.min(dst.length - copied, segment.capacity() - offset);
+            segment.get(offset, dst, copied, length);
+            copied += length;
+            position += length;
+        }
+    }
+
+    // CRC32 of bytes [0, end)
+    long crc32(long end) {
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < segments.length && ((long) i << SEGMENT_SHIFT) < end; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            ByteBuffer segment = segments[i].duplicate();
+            segment.limit((int) Math.min(segment.capacity(), end - start));
+            crc.update(segment);
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,34 @@
+package graph.gui;
+
+import java.util.Collections;
+import java.util.List;
+
+// Result of a point to point shortest path query
+public final class ShortestPath<T> {
+    private final long distance;
+    private final List<T> vertices;
+
+    ShortestPath(long distance, List<T> vertices) {
+        this.distance = distance;
+        this.vertices = Collections.unmodifiableList(vertices);
+    }
+
+    public boolean isFound() {
+        return distance != ShortestPathTree.UNREACHABLE;
+    }
+
+    // Returns path length, or ShortestPathTree.UNREACHABLE if target can't be reached
+    public long getDistance() {
+        return distance;
+    }
+
+    // Returns vertices from source to target (inclusive), or empty list if target can't be reached
+    public List<T> getVertices() {
+        return vertices;
+    }
+
+    @Override
+    public String toString() {
+        return isFound() ? distance + " " + vertices : "unreachable";
+    }
+}
@@ -0,0 +1,9 @@
+package graph.gui;
+
+// Single source shortest path engines selectable through GraphMethods.shortestPathTree / dijkstra
+public enum ShortestPathEngine {
+    // Sequential Dijkstra with an indexed 4-ary heap
+    DIJKSTRA,
+    // Parallel delta-stepping on the common fork-join pool. Same distances, faster on large graphs
+    DELTA_STEPPING
+}
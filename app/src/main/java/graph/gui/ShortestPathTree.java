@@ -0,0 +1,138 @@
+package graph.gui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/* Result of a single source shortest path search.
+ *  Keeps the raw distance and parent arrays indexed by vertex id and answers queries from them on demand,
+ *  so callers that only need one distance or path don't pay for building a graph.
+ *  Distances are 64-bit (see Dijkstra). Bound to the snapshot it was computed on, so vertices added to the
+ *  graph afterwards are unknown to it.
+ */
+public final class ShortestPathTree<T> {
+    public static final long UNREACHABLE = Dijkstra.UNREACHABLE;
+
+    private final GraphSnapshot<T> graph;
+    private final int sourceId;
+    private final long[] dist;
+    private final int[] parent;
+
+    ShortestPathTree(GraphSnapshot<T> graph, int sourceId, long[] dist, int[] parent) {
+        this.graph = graph;
+        this.sourceId = sourceId;
+        this.dist = dist;
+        this.parent = parent;
+    }
+
+    public T getSource() {
+        return graph.nameOf(sourceId);
+    }
+
+    public boolean isReachable(T target) {
+        return distanceTo(target) != UNREACHABLE;
+    }
+
+    // Returns length of shortest path from source to target, or UNREACHABLE
+    public long distanceTo(T target) {
+        int targetId = requireId(target);
+        if (targetId >= dist.length) {
+            return UNREACHABLE;
+        }
+        return dist[targetId];
+    }
+
+    // Returns vertices on shortest path from source to target (inclusive), or empty list if unreachable
+    public List<T> pathTo(T target) {
+        int targetId = requireId(target);
+        if (targetId >= dist.length || dist[targetId] == UNREACHABLE) {
+            return Collections.emptyList();
+        }
+        List<T> path = new ArrayList<>();
+        for (int v = targetId; v != -1; v = parent[v]) {
+            path.add(graph.nameOf(v));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    // Returns all vertices reachable from source (including source) in vertex id order
+    public List<T> reachable() {
+        List<T> res = new ArrayList<>();
+        for (int v = 0; v < dist.length; v++) {
+            if (dist[v] != UNREACHABLE) {
+                res.add(graph.nameOf(v));
+            }
+        }
+        return res;
+    }
+
+    // Number of vertices reachable from source (including source)
+    int reachableCount() {
+        int count = 0;
+        for (long d : dist) {
+            if (d != UNREACHABLE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Builds graph of reachable vertices and the shortest path edges between them, e.g. for the GUI. Packed
+    // straight into CSR form, with reachable vertices keeping their order
+    public DirectedWeightedGraph<T> toGraph() {
+        DirectedWeightedGraph<T> type = graph.newEmptyGraph();
+        VertexDictionary<T> names = type.newVertexDictionary();
+        int[] newIds = new int[dist.length];
+        int edgeNum = 0;
+        for (int v = 0; v < dist.length; v++) {
+            if (dist[v] == UNREACHABLE) {
+                newIds[v] = -1;
+                continue;
+            }
+            T node = graph.nameOf(v);
+            newIds[v] = names.add(node);
+            if (newIds[v] < 0) {
+                names = BiMapVertexDictionary.copyOf(names);
+                newIds[v] = names.add(node);
+            }
+            if (parent[v] > -1) {
+                edgeNum++;
+            }
+        }
+        int[] from = new int[edgeNum];
+        int[] to = new int[edgeNum];
+        int[] weights = new int[edgeNum];
+        int e = 0;
+        for (int v = 0; v < parent.length; v++) {
+            if (parent[v] > -1) {
+                from[e] = newIds[parent[v]];
+                to[e] = newIds[v];
+                // Edge weight is the difference in distance as parent edge is on a shortest path
+                weights[e] = (int) (dist[v] - dist[parent[v]]);
+                e++;
+            }
+        }
+        return type.newGraph(names, CsrGraph.fromEdges(names.size(), from, to, weights));
+    }
+
+    int getSourceId() {
+        return sourceId;
+    }
+
+    long[] getDistances() {
+        return dist;
+    }
+
+    int[] getParents() {
+        return parent;
+    }
+
+    private int requireId(T node) {
+        int id = graph.idOf(node);
+        if (id < 0) {
+            throw new IllegalArgumentException("Node must exist");
+        }
+        return id;
+    }
+}
@@ -0,0 +1,279 @@
+package graph.gui;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.ToIntFunction;
+
+/* Vertex dictionary for String names without per-vertex entry objects.
+ *  names[id] gives the name of an id, and an open-addressing table (linear probing) of ids gives the id of a
+ *  name, comparing String's cached hash code before equals. Per vertex that's one array slot plus two or
+ *  three table slots, instead of the two entries and boxed Integer of a HashBiMap.
+ *  Names are only ever appended and table slots only go from empty to full, so a frozen copy can share both
+ *  arrays: lookups of names it holds never pass a slot filled later, and it ignores ids past its own size.
+ *  Growing the arrays replaces them, leaving the frozen copy's arrays untouched.
+ */
+final class StringVertexDictionary implements VertexDictionary<String> {
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private String[] names = new String[MIN_CAPACITY / 2];
+    // Ids by hash of their name, or EMPTY
+    private int[] table = emptyTable(MIN_CAPACITY);
+    private int size = 0;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int idOf(String node) {
+        return find(names, table, size, node);
+    }
+
+    @Override
+    public String nameOf(int id) {
+        return id >= 0 && id < size ? names[id] : null;
+    }
+
+    @Override
+    public int add(String node) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        // Keep load factor at or under 1/2
+        if ((size + 1L) * 2 > table.length) {
+            if (table.length == (1 << 30)) {
+                throw new IllegalStateException("Vertex dictionary is full");
+            }
+            rehash(table.length * 2);
+        }
+        int id = size;
+        names[id] = node;
+        insert(table, node.hashCode(), id);
+        size++;
+        return id;
+    }
+
+    @Override
+    public Map<String, Integer> asMap() {
+        return new NameView(() -> size, this::idOf, this::nameOf);
+    }
+
+    @Override
+    public Map<Integer, String> asInverseMap() {
+        return new IdView(() -> size, this::nameOf);
+    }
+
+    // O(1): shares the current arrays, see class comment
+    @Override
+    public VertexDictionary<String> frozenCopy() {
+        return new Frozen(names, table, size);
+    }
+
+    private void rehash(int capacity) {
+        int[] newTable = emptyTable(capacity);
+        for (int id = 0; id < size; id++) {
+            insert(newTable, names[id].hashCode(), id);
+        }
+        table = newTable;
+    }
+
+    private static int[] emptyTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int slotOf(int hash, int mask) {
+        // Spread the bits so names differing only in high bits don't share slots
+        return ((hash ^ (hash >>> 16)) * 0x9E3779B9) & mask;
+    }
+
+    private static void insert(int[] table, int hash, int id) {
+        int mask = table.length - 1;
+        int slot = slotOf(hash, mask);
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = id;
+    }
+
+    // Returns id of node among the first size ids, or -1
+    private static int find(String[] names, int[] table, int size, String node) {
+        if (node == null) {
+            return -1;
+        }
+        int hash = node.hashCode();
+        int mask = table.length - 1;
+        int slot = slotOf(hash, mask);
+        int id;
+        while ((id = table[slot]) != EMPTY) {
+            if (id < size && names[id].hashCode() == hash && names[id].equals(node)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Read-only snapshot of a dictionary, sharing its arrays up to size
+    private static final class Frozen implements VertexDictionary<String> {
+        private final String[] names;
+        private final int[] table;
+        private final int size;
+
+        Frozen(String[] names, int[] table, int size) {
+            this.names = names;
+            this.table = table;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int idOf(String node) {
+            return find(names, table, size, node);
+        }
+
+        @Override
+        public String nameOf(int id) {
+            return id >= 0 && id < size ? names[id] : null;
+        }
+
+        @Override
+        public int add(String node) {
+            throw new IllegalStateException("Frozen vertex dictionary can't be changed");
+        }
+
+        @Override
+        public Map<String, Integer> asMap() {
+            return new NameView(() -> size, this::idOf, this::nameOf);
+        }
+
+        @Override
+        public Map<Integer, String> asInverseMap() {
+            return new IdView(() -> size, this::nameOf);
+        }
+
+        @Override
+        public VertexDictionary<String> frozenCopy() {
+            return this;
+        }
+    }
+
+    // name -> id view
+    private static final class NameView extends AbstractMap<String, Integer> {
+        private final IntSupplier size;
+        private final ToIntFunction<String> lookup;
+        private final IntFunction<String> names;
+
+        NameView(IntSupplier size, ToIntFunction<String> lookup, IntFunction<String> names) {
+            this.size = size;
+            this.lookup = lookup;
+            this.names = names;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            int id = lookup.applyAsInt((String) key);
+            return id < 0 ? null : id;
+        }
+
+        @Override
+        public int size() {
+            return size.getAsInt();
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new EntrySet<>(size, id -> new SimpleImmutableEntry<>(names.apply(id), id));
+        }
+    }
+
+    // id -> name view
+    private static final class IdView extends AbstractMap<Integer, String> {
+        private final IntSupplier size;
+        private final IntFunction<String> names;
+
+        IdView(IntSupplier size, IntFunction<String> names) {
+            this.size = size;
+            this.names = names;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public String get(Object key) {
+            return key instanceof Integer ? names.apply((Integer) key) : null;
+        }
+
+        @Override
+        public int size() {
+            return size.getAsInt();
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, String>> entrySet() {
+            return new EntrySet<>(size, id -> new SimpleImmutableEntry<>(id, names.apply(id)));
+        }
+    }
+
+    // Entries for ids 0..size-1 in id order
+    private static final class EntrySet<K, V> extends AbstractSet<Map.Entry<K, V>> {
+        private final IntSupplier size;
+        private final IntFunction<Map.Entry<K, V>> entryOf;
+
+        EntrySet(IntSupplier size, IntFunction<Map.Entry<K, V>> entryOf) {
+            this.size = size;
+            this.entryOf = entryOf;
+        }
+
+        @Override
+        public int size() {
+            return size.getAsInt();
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            int end = size.getAsInt();
+            return new Iterator<Map.Entry<K, V>>() {
+                private int id = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return id < end;
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    if (id >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    return entryOf.apply(id++);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package graph.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* Result of a topological sort with the level (layer) of every vertex.
+ *  Level 0 vertices have no in-edges, and every edge goes from a lower level to a higher one,
+ *  so all vertices of a level can be scheduled together once earlier levels are done.
+ */
+public final class TopologicalOrder<T> {
+    private final GraphSnapshot<T> graph;
+    private final int[] order;
+    private final int[] level;
+    private final int levelCount;
+
+    TopologicalOrder(GraphSnapshot<T> graph, int[] order, int[] level) {
+        this.graph = graph;
+        this.order = order;
+        this.level = level;
+        int maxLevel = -1;
+        for (int l : level) {
+            maxLevel = Math.max(maxLevel, l);
+        }
+        this.levelCount = maxLevel + 1;
+    }
+
+    // Returns vertices in topological order
+    public List<T> getOrder() {
+        List<T> res = new ArrayList<>(order.length);
+        for (int id : order) {
+            res.add(graph.nameOf(id));
+        }
+        return res;
+    }
+
+    public int levelOf(T node) {
+        int id = graph.idOf(node);
+        if (id < 0 || id >= level.length) {
+            throw new IllegalArgumentException("Node must exist");
+        }
+        return level[id];
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    int[] getOrderIds() {
+        return order;
+    }
+
+    int[] getLevels() {
+        return level;
+    }
+}
@@ -0,0 +1,219 @@
+package graph.gui;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/* Kahn's algorithm on a GraphStore using int[] in-degrees and an int[] queue.
+ *  Also records each vertex's level: 0 for vertices with no in-edges, otherwise 1 + the highest level of
+ *  its in-neighbours (length of the longest path ending at it), which gives the layers for scheduling.
+ *  The parallel mode processes one level (Kahn frontier) at a time, decrementing in-degrees atomically
+ *  from several workers. Its order is level by level with ids ascending inside a level, while the
+ *  sequential order is plain FIFO Kahn. Both are valid topological orders with the same levels.
+ */
+final class TopologicalSort {
+    // Edges handled by one leaf task before splitting stops
+    private static final int EDGES_PER_TASK = 4096;
+    // Sequential sort reports popped vertices as progress whenever head & REPORT_MASK is 0
+    private static final int REPORT_MASK = QueryProgress.REPORT_INTERVAL - 1;
+
+    private TopologicalSort() {
+    }
+
+    /**
+     * Sorts graph sequentially
+     * @param graph graph to sort
+     * @param level filled with level of each vertex
+     * @return vertex ids in topological order
+     */
+    static int[] sort(GraphStore graph, int[] level) {
+        return sort(graph, level, QueryStats.DISABLED);
+    }
+
+    // Same as sort, adding the work done to stats
+    static int[] sort(GraphStore graph, int[] level, QueryStats stats) {
+        int vertexNum = graph.getVertexNum();
+        long edgeCount = graph.getEdgeCount();
+        // Edges of a CsrGraph are read straight from its arrays with int indices, which is measurably faster
+        // than going through GraphStore once the JIT has seen more than one kind of store
+        CsrGraph csr = graph instanceof CsrGraph ? (CsrGraph) graph : null;
+        int[] inDegrees = new int[vertexNum];
+        if (csr != null) {
+            for (int target : csr.targets) {
+                inDegrees[target]++;
+            }
+        } else {
+            for (long e = 0; e < edgeCount; e++) {
+                inDegrees[graph.target(e)]++;
+            }
+        }
+        // Every vertex is queued exactly once, so the queue never needs more than V slots and never wraps
+        int[] queue = new int[vertexNum];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < vertexNum; v++) {
+            level[v] = 0;
+            if (inDegrees[v] == 0) {
+                queue[tail++] = v;
+            }
+        }
+        long relaxed = 0;
+        while (head < tail) {
+            int pop = queue[head++];
+            if ((head & REPORT_MASK) == 0) {
+                stats.reportWork(QueryProgress.REPORT_INTERVAL);
+            }
+            long start = csr != null ? csr.offsets[pop] : graph.edgeOffset(pop);
+            long end = csr != null ? csr.offsets[pop + 1] : graph.edgeOffset(pop + 1);
+            relaxed += end - start;
+            if (csr != null) {
+                int[] targets = csr.targets;
+                for (int e = (int) start; e < (int) end; e++) {
+                    if (release(pop, targets[e], level, inDegrees)) {
+                        queue[tail++] = targets[e];
+                    }
+                }
+            } else {
+                for (long e = start; e < end; e++) {
+                    int neighId = graph.target(e);
+                    if (release(pop, neighId, level, inDegrees)) {
+                        queue[tail++] = neighId;
+                    }
+                }
+            }
+        }
+        stats.reportWork(head & REPORT_MASK);
+        // The queue becomes the result, so only the in-degrees are scratch
+        stats.allocateScratch(4L * vertexNum);
+        stats.releaseScratch(4L * vertexNum);
+        stats.addSearch(tail, relaxed, tail, tail);
+        if (tail != vertexNum) {
+            // Exception may not be the right one but it's the best for now
+            throw new IllegalArgumentException("Cycle detected in graph.");
+        }
+        return queue;
+    }
+
+    // Removes edge pop -> neighId, returning whether it was neighId's last in-edge
+    private static boolean release(int pop, int neighId, int[] level, int[] inDegrees) {
+        level[neighId] = Math.max(level[neighId], level[pop] + 1);
+        return --inDegrees[neighId] == 0;
+    }
+
+    /**
+     * Sorts graph one level at a time, each level's edges processed in parallel on pool
+     * @param graph graph to sort
+     * @param pool pool that levels run on
+     * @param level filled with level of each vertex
+     * @return vertex ids in topological order
+     */
+    static int[] sortParallel(CsrGraph graph, ForkJoinPool pool, int[] level) {
+        return sortParallel(graph, pool, level, QueryStats.DISABLED);
+    }
+
+    // Same as sortParallel, adding the work done to stats
+    static int[] sortParallel(CsrGraph graph, ForkJoinPool pool, int[] level, QueryStats stats) {
+        int vertexNum = graph.vertexNum;
+        AtomicIntegerArray inDegrees = new AtomicIntegerArray(vertexNum);
+        for (int e = 0; e < graph.targets.length; e++) {
+            inDegrees.getAndIncrement(graph.targets[e]);
+        }
+        int[] order = new int[vertexNum];
+        int orderNum = 0;
+        for (int v = 0; v < vertexNum; v++) {
+            if (inDegrees.get(v) == 0) {
+                order[orderNum++] = v;
+            }
+        }
+        int[] released = new int[16];
+        int levelStart = 0;
+        int currLevel = 0;
+        long relaxed = 0;
+        int widestLevel = 0;
+        while (levelStart < orderNum) {
+            int levelEnd = orderNum;
+            widestLevel = Math.max(widestLevel, levelEnd - levelStart);
+            int[] edgePrefix = new int[levelEnd - levelStart + 1];
+            for (int i = levelStart; i < levelEnd; i++) {
+                level[order[i]] = currLevel;
+                edgePrefix[i - levelStart + 1] = edgePrefix[i - levelStart] + graph.outDegree(order[i]);
+            }
+            int edgeNum = edgePrefix[levelEnd - levelStart];
+            relaxed += edgeNum;
+            if (released.length < edgeNum) {
+                released = new int[Math.max(edgeNum, released.length * 2)];
+            }
+            ReleaseTask task = new ReleaseTask(graph, inDegrees, order, levelStart, edgePrefix, 0, levelEnd - levelStart, released);
+            if (edgeNum <= EDGES_PER_TASK) {
+                task.compute();
+            } else {
+                pool.invoke(task);
+            }
+            // Next level = vertices whose last in-edge was in this level
+            for (int i = 0; i < edgeNum; i++) {
+                if (released[i] >= 0) {
+                    order[orderNum++] = released[i];
+                }
+            }
+            Arrays.parallelSort(order, levelEnd, orderNum);
+            // Whole levels are reported, as they are what runs between checks here
+            stats.reportWork(levelEnd - levelStart);
+            levelStart = levelEnd;
+            currLevel++;
+        }
+        // In-degrees, released slots at their largest and the prefix sums of the widest level
+        long scratch = 4L * vertexNum + 4L * released.length + 4L * (widestLevel + 1);
+        stats.allocateScratch(scratch);
+        stats.releaseScratch(scratch);
+        stats.addSearch(orderNum, relaxed, orderNum, orderNum);
+        if (orderNum != vertexNum) {
+            throw new IllegalArgumentException("Cycle detected in graph.");
+        }
+        return order;
+    }
+
+    // Decrements in-degree of every out-neighbour of order[levelStart + from .. levelStart + to). Writes the
+    // neighbour into its edge's slot of released if its in-degree reached 0, otherwise -1
+    private static final class ReleaseTask extends RecursiveAction {
+        private final CsrGraph graph;
+        private final AtomicIntegerArray inDegrees;
+        private final int[] order;
+        private final int levelStart;
+        private final int[] edgePrefix;
+        private final int from;
+        private final int to;
+        private final int[] released;
+
+        ReleaseTask(CsrGraph graph, AtomicIntegerArray inDegrees, int[] order, int levelStart, int[] edgePrefix, int from, int to, int[] released) {
+            this.graph = graph;
+            this.inDegrees = inDegrees;
+            this.order = order;
+            this.levelStart = levelStart;
+            this.edgePrefix = edgePrefix;
+            this.from = from;
+            this.to = to;
+            this.released = released;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && edgePrefix[to] - edgePrefix[from] > EDGES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ReleaseTask(graph, inDegrees, order, levelStart, edgePrefix, from, mid, released),
+                    new ReleaseTask(graph, inDegrees, order, levelStart, edgePrefix, mid, to, released));
+                return;
+            }
+            int[] offsets = graph.offsets;
+            int[] targets = graph.targets;
+            for (int i = from; i < to; i++) {
+                int u = order[levelStart + i];
+                int slot = edgePrefix[i];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int neighId = targets[e];
+                    released[slot++] = inDegrees.decrementAndGet(neighId) == 0 ? neighId : -1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package graph.gui;
+
+import java.util.Map;
+
+/* Maps vertex names to dense ids 0..size-1 and back.
+ *  Graphs only ever add names, so an id never changes once handed out.
+ */
+interface VertexDictionary<T> {
+    int size();
+
+    // Returns id of node, or -1 if it doesn't exist
+    int idOf(T node);
+
+    T nameOf(int id);
+
+    // Gives node the next id and returns it, or returns -1 if this dictionary can't hold node (the caller then
+    // moves to a general dictionary with copyOf). node must not already exist
+    int add(T node);
+
+    // Read-only views, kept up to date as names are added
+    Map<T, Integer> asMap();
+
+    Map<Integer, T> asInverseMap();
+
+    // Copy that later adds to this dictionary don't affect, for snapshots
+    VertexDictionary<T> frozenCopy();
+}
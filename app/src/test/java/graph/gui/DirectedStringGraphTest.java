@@ -5,10 +5,27 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.Graph;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 public class DirectedStringGraphTest {
     @Test
@@ -53,6 +70,103 @@ public class DirectedStringGraphTest {
         );
     }
 
+    @Test
+    @DisplayName("CSR form matches adjacency list and is rebuilt after adding an edge")
+    public void csrMatchesAdjList() {
+        // Graph = 1->{2,3}, 2->3
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        String[] fstEdge = {"1","2"};
+        String[] sndEdge = {"1","3"};
+        String[] thrdEdge = {"2","3"};
+        edges.addAll(Arrays.asList(fstEdge, sndEdge, thrdEdge));
+        weights.addAll(Arrays.asList(4,7,2));
+        DirectedStringGraph graph = new DirectedStringGraph(edges, weights);
+        CsrGraph csr = graph.getCsr();
+        assertAll("Test expected CSR arrays = actual CSR arrays",
+            () -> assertEquals(3, csr.getVertexNum()),
+            () -> assertEquals(3, csr.getEdgeNum()),
+            () -> assertArrayEquals(new int[]{0, 2, 3, 3}, csr.offsets),
+            () -> assertArrayEquals(new int[]{1, 2, 2}, csr.targets),
+            () -> assertArrayEquals(new int[]{4, 7, 2}, csr.weights)
+        );
+        assertSame(csr, graph.getCsr());
+
+        graph.addEdgeFastSetup("3", "4", 1);
+        CsrGraph rebuilt = graph.getCsr();
+        assertNotSame(csr, rebuilt);
+        assertEquals(4, rebuilt.getVertexNum());
+        assertEquals(1, rebuilt.outDegree(2));
+        assertEquals(3, rebuilt.target(rebuilt.edgeStart(2)));
+    }
+
+    @Test
+    @DisplayName("Duplicate edges keep first weight on hub vertex")
+    public void duplicateEdgesOnHub() {
+        // Graph = hub->{0..999}, every edge given twice with different weights
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (int repeat = 0; repeat < 2; repeat++) {
+            for (int i = 0; i < 1000; i++) {
+                String[] edge = {"hub", String.valueOf(i)};
+                edges.add(edge);
+                weights.add(i + repeat * 5000);
+            }
+        }
+        DirectedStringGraph graph = new DirectedStringGraph(edges, weights);
+        assertEquals(1000, graph.getAdjList().get(0).size());
+        assertEquals(999, graph.getEdgeWeight("hub", "999"));
+        assertTrue(graph.edgeExists("hub", "0"));
+        assertFalse(graph.edgeExists("0", "hub"));
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.getEdgeWeight("0", "1");
+        });
+    }
+
+    @Test
+    @DisplayName("List constructors keep each vertex's edges in insertion order")
+    public void edgesKeepInsertionOrder() {
+        // Graph = x->y, z->{w,y}, z's edges given against id order
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        edges.addAll(Arrays.asList(new String[] {"x", "y"}, new String[] {"z", "w"}, new String[] {"z", "y"}, new String[] {"z", "w"}));
+        weights.addAll(Arrays.asList(1, 2, 3, 4));
+        DirectedStringGraph graph = new DirectedStringGraph(edges, weights);
+        List<MyEdge> zEdges = graph.getAdjList().get(graph.getVertexMap().get("z"));
+        assertAll("Test z's edges in insertion order, duplicate dropped",
+            () -> assertEquals(2, zEdges.size()),
+            () -> assertEquals(graph.getVertexMap().get("w"), zEdges.get(0).getNeigh()),
+            () -> assertEquals(2, zEdges.get(0).getWeight()),
+            () -> assertEquals(graph.getVertexMap().get("y"), zEdges.get(1).getNeigh())
+        );
+        assertIterableEquals(Arrays.asList("x", "z", "w", "y"), graph.topologicalSort());
+    }
+
+    @Test
+    @DisplayName("Edge lookups search CSR with unsorted targets, then the edge index once edited")
+    public void edgeLookupsOnCsr() {
+        // Graph = a->{c,b} with a's edges not sorted by target, as in a file saved after edits
+        StringVertexDictionary names = new StringVertexDictionary();
+        names.add("a");
+        names.add("b");
+        names.add("c");
+        CsrGraph csr = new CsrGraph(3, new int[] {0, 2, 2, 2}, new int[] {2, 1}, new int[] {5, 7});
+        DirectedStringGraph graph = new DirectedStringGraph(names, csr);
+        assertAll("Lookups before any edit",
+            () -> assertEquals(5, graph.getEdgeWeight("a", "c")),
+            () -> assertEquals(7, graph.getEdgeWeight("a", "b")),
+            () -> assertFalse(graph.edgeExists("b", "a")),
+            () -> assertEquals(-1, csr.findEdge(0, 0))
+        );
+        graph.addEdgeFastSetup("b", "a", 3);
+        graph.addEdgeFastSetup("a", "b", 100);
+        assertAll("Lookups after edits",
+            () -> assertEquals(3, graph.getEdgeWeight("b", "a")),
+            () -> assertEquals(7, graph.getEdgeWeight("a", "b")),
+            () -> assertTrue(graph.edgeExists("a", "c"))
+        );
+    }
+
     @Test
     @DisplayName("Topological sort on graph with 4 nodes")
     public void topologicalSort() {
@@ -72,6 +186,335 @@ public class DirectedStringGraphTest {
         assertIterableEquals(expected, actual);
     }
 
+    @Test
+    @DisplayName("Topological levels, sequential and parallel, on layered graph")
+    public void topologicalLevels() {
+        // Graph = 2->{1,3}->4, 2->4, 5 isolated, 3->6
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        String[] fstEdge = {"2","1"};
+        String[] sndEdge = {"2","3"};
+        String[] thrdEdge = {"1","4"};
+        String[] frthEdge = {"3","4"};
+        String[] fifthEdge = {"2","4"};
+        String[] sixthEdge = {"3","6"};
+        edges.addAll(Arrays.asList(fstEdge, sndEdge, thrdEdge, frthEdge, fifthEdge, sixthEdge));
+        weights.addAll(Arrays.asList(1,1,1,1,1,1));
+        List<String> nodes = Arrays.asList("2","1","3","4","5","6");
+        DirectedStringGraph graph = new DirectedStringGraph(nodes, edges, weights);
+        TopologicalOrder<String> sequential = graph.topologicalOrder(false);
+        TopologicalOrder<String> parallel = graph.topologicalOrder(true);
+        assertIterableEquals(Arrays.asList("2","5","1","3","4","6"), sequential.getOrder());
+        assertIterableEquals(Arrays.asList("2","5","1","3","4","6"), parallel.getOrder());
+        for (TopologicalOrder<String> order : Arrays.asList(sequential, parallel)) {
+            assertAll("Test expected levels = actual levels",
+                () -> assertEquals(3, order.getLevelCount()),
+                () -> assertEquals(0, order.levelOf("2")),
+                () -> assertEquals(0, order.levelOf("5")),
+                () -> assertEquals(1, order.levelOf("1")),
+                () -> assertEquals(1, order.levelOf("3")),
+                () -> assertEquals(2, order.levelOf("4")),
+                () -> assertEquals(2, order.levelOf("6"))
+            );
+        }
+
+        graph.addEdgeFastSetup("4", "2", 1);
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.topologicalOrder(true);
+        });
+    }
+
+    @Test
+    @DisplayName("Frozen snapshot unaffected by later edits and shared between threads")
+    public void frozenSnapshot() throws InterruptedException {
+        // Graph = 1->2->3, 1->3
+        DirectedStringGraph graph = new DirectedStringGraph();
+        graph.addEdgeFastSetup("1", "2", 1);
+        graph.addEdgeFastSetup("2", "3", 1);
+        graph.addEdgeFastSetup("1", "3", 5);
+        GraphSnapshot<String> snapshot = graph.freeze();
+        assertSame(snapshot, graph.freeze());
+
+        graph.addEdgeFastSetup("3", "4", 1);
+        graph.addEdgeFastSetup("1", "4", 1);
+        GraphSnapshot<String> next = graph.freeze();
+        assertAll("Test old snapshot keeps old graph",
+            () -> assertNotSame(snapshot, next),
+            () -> assertSame(next, graph.latestSnapshot()),
+            () -> assertEquals(3, snapshot.getLength()),
+            () -> assertFalse(snapshot.nodeExists("4")),
+            () -> assertEquals(2, snapshot.shortestPath("1", "3").getDistance()),
+            () -> assertEquals(1, next.shortestPath("1", "4").getDistance()),
+            () -> assertEquals(6, snapshot.fordFulkersonMaxFlow("1", "3"))
+        );
+
+        List<Thread> readers = new ArrayList<>();
+        Map<String, Long> failures = new ConcurrentHashMap<>();
+        for (int t = 0; t < 4; t++) {
+            Thread reader = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    long dist = snapshot.shortestPathTree("1").distanceTo("3");
+                    if (dist != 2 || !snapshot.topologicalSort().equals(Arrays.asList("1","2","3"))) {
+                        failures.put(Thread.currentThread().getName(), dist);
+                    }
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        for (int i = 0; i < 1000; i++) {
+            graph.addEdgeFastSetup(Integer.toString(i + 5), "2", 1);
+            graph.freeze();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertTrue(failures.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Graph built from several threads matches graph built one edge at a time")
+    public void concurrentBuilder() throws InterruptedException {
+        Random random = new Random(13);
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            edges.add(new String[] {Integer.toString(random.nextInt(1000)), Integer.toString(random.nextInt(1000))});
+            weights.add(random.nextInt(100));
+        }
+        ConcurrentGraphBuilder<String> builder = ConcurrentGraphBuilder.forStrings();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            // Feeders made in order, each fed the next quarter of the edges, add them in input order
+            ConcurrentGraphBuilder<String>.Feeder feeder = builder.feeder();
+            int from = t * edges.size() / 4;
+            int to = (t + 1) * edges.size() / 4;
+            Thread thread = new Thread(() -> feeder.addEdges(edges.subList(from, to), weights.subList(from, to)));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        GraphSnapshot<String> built = builder.build();
+        DirectedStringGraph graph = new DirectedStringGraph();
+        for (int i = 0; i < edges.size(); i++) {
+            graph.addEdgeFastSetup(edges.get(i)[0], edges.get(i)[1], weights.get(i));
+        }
+        assertEquals(graph.getLength(), built.getLength());
+        assertEquals(graph.getCsr().getEdgeNum(), built.getCsr().getEdgeNum());
+        assertTrue(built.getVertexDictionary() instanceof StringVertexDictionary);
+        // Same edges in the same order, the first of duplicates kept
+        CsrGraph expectedCsr = graph.getCsr();
+        CsrGraph actualCsr = built.getCsr();
+        for (String node : graph.getVertexMap().keySet()) {
+            int v = graph.getVertexMap().get(node);
+            int w = built.getVertexDictionary().idOf(node);
+            assertEquals(expectedCsr.offsets[v + 1] - expectedCsr.offsets[v], actualCsr.offsets[w + 1] - actualCsr.offsets[w]);
+            for (int i = 0; i < expectedCsr.offsets[v + 1] - expectedCsr.offsets[v]; i++) {
+                int expectedEdge = expectedCsr.offsets[v] + i;
+                int actualEdge = actualCsr.offsets[w] + i;
+                assertEquals(graph.getVertexDictionary().nameOf(expectedCsr.targets[expectedEdge]),
+                    built.getVertexDictionary().nameOf(actualCsr.targets[actualEdge]));
+                assertEquals(expectedCsr.weights[expectedEdge], actualCsr.weights[actualEdge]);
+            }
+        }
+        ShortestPathTree<String> expected = graph.shortestPathTree("0");
+        ShortestPathTree<String> actual = built.shortestPathTree("0");
+        for (String node : graph.getVertexMap().keySet()) {
+            assertEquals(expected.distanceTo(node), actual.distanceTo(node));
+        }
+        assertEquals(graph.maxFlow("0", "1", MaxFlowAlgorithm.DINIC), built.maxFlow("0", "1", MaxFlowAlgorithm.DINIC));
+        // The builder hands everything to the snapshot, so it can't be built or added to again
+        assertThrows(IllegalStateException.class, builder::build);
+        assertThrows(IllegalStateException.class, builder::feeder);
+        assertThrows(IllegalStateException.class, () -> builder.addNode("0"));
+    }
+
+    @Test
+    @DisplayName("Int graph from primitive arrays uses vertices as ids")
+    public void denseIntGraph() {
+        // Graph = 0->1->2->3, 0->2, duplicate 0->1 with a different weight
+        int[] from = {0, 1, 2, 0, 0};
+        int[] to = {1, 2, 3, 2, 1};
+        int[] weights = {1, 1, 1, 5, 9};
+        DirectedIntGraph graph = new DirectedIntGraph(4, from, to, weights);
+        assertAll("Test graph built straight from arrays",
+            () -> assertTrue(graph.hasDenseIds()),
+            () -> assertFalse(graph.nodeExists(null)),
+            () -> assertEquals(4, graph.getLength()),
+            () -> assertEquals(4, graph.getCsr().getEdgeNum()),
+            () -> assertEquals(1, graph.getEdgeWeight(0, 1)),
+            () -> assertArrayEquals(new long[] {0, 1, 2, 3}, graph.distancesFrom(0)),
+            () -> assertArrayEquals(new int[] {0, 1, 2, 3}, graph.topologicalSortIds()),
+            () -> assertEquals(1, graph.maxFlow(0, 3, MaxFlowAlgorithm.DINIC))
+        );
+
+        graph.addEdgeFastSetup(3, 4, 1);
+        assertTrue(graph.hasDenseIds());
+        assertEquals(4, graph.dijkstra(0).getLength() - 1);
+        graph.addEdgeFastSetup(4, 10, 1);
+        assertAll("Test graph after a vertex outside 0..n-1",
+            () -> assertFalse(graph.hasDenseIds()),
+            () -> assertEquals(6, graph.getLength()),
+            () -> assertEquals(5, graph.shortestPath(0, 10).getDistance()),
+            () -> assertArrayEquals(new int[] {0, 1, 2, 3, 4, 10}, graph.topologicalSortIds()),
+            () -> assertEquals(Integer.valueOf(5), graph.getVertexMap().get(10))
+        );
+    }
+
+    @Test
+    @DisplayName("Vertex names map to ids and back, and snapshots keep their own names")
+    public void stringVertexDictionary() {
+        DirectedStringGraph graph = new DirectedStringGraph();
+        for (int i = 0; i < 5000; i++) {
+            graph.addEdgeFastSetup("v" + i, "v" + (i + 1), 1);
+        }
+        GraphSnapshot<String> snapshot = graph.freeze();
+        for (int i = 5000; i < 10000; i++) {
+            graph.addEdgeFastSetup("v" + i, "v" + (i + 1), 1);
+        }
+        Map<String, Integer> vertexMap = graph.getVertexMap();
+        Map<Integer, String> inverseVertexMap = graph.getInverseVertexMap();
+        assertAll("Test names and ids",
+            () -> assertEquals(10001, vertexMap.size()),
+            () -> assertEquals(Integer.valueOf(0), vertexMap.get("v0")),
+            () -> assertEquals(Integer.valueOf(9999), vertexMap.get("v9999")),
+            () -> assertNull(vertexMap.get("v10001")),
+            () -> assertEquals("v4321", inverseVertexMap.get(4321)),
+            () -> assertTrue(inverseVertexMap.values().contains("v10000")),
+            () -> assertTrue(snapshot.nodeExists("v5000")),
+            () -> assertFalse(snapshot.nodeExists("v5001")),
+            () -> assertEquals(5000, snapshot.shortestPath("v0", "v5000").getDistance()),
+            () -> assertEquals(10000, graph.shortestPath("v0", "v10000").getDistance())
+        );
+    }
+
+    @Test
+    @DisplayName("Graph written to a binary file and mapped back is the same graph")
+    public void graphFileRoundTrip() throws IOException {
+        Random random = new Random(16);
+        DirectedStringGraph graph = new DirectedStringGraph();
+        for (int i = 0; i < 3000; i++) {
+            graph.addEdgeFastSetup("n\u00e9" + random.nextInt(500), "\u65e5\u672c" + random.nextInt(500), random.nextInt(1000) - 100);
+        }
+        Path path = Files.createTempFile("graph", ".bin");
+        path.toFile().deleteOnExit();
+        GraphFile.write(graph, path);
+
+        MappedGraph<String> mapped = GraphFile.open(path, String.class);
+        mapped.verifyChecksum();
+        CsrGraph expected = graph.getCsr();
+        CsrGraph actual = mapped.toGraph().getCsr();
+        assertEquals(expected.getVertexNum(), mapped.getVertexNum());
+        assertEquals(expected.getEdgeNum(), actual.getEdgeNum());
+        for (int v = 0; v < expected.getVertexNum(); v++) {
+            assertEquals(graph.getInverseVertexMap().get(v), mapped.nameOf(v));
+            assertEquals(expected.edgeStart(v), mapped.edgeOffset(v));
+        }
+        for (int e = 0; e < expected.getEdgeNum(); e++) {
+            assertEquals(expected.target(e), actual.target(e));
+            assertEquals(expected.weight(e), actual.weight(e));
+        }
+        assertThrows(IllegalArgumentException.class, () -> {
+            GraphFile.open(path, Integer.class);
+        });
+
+        // Flip one weight byte
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 100] ^= 1;
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> {
+            GraphFile.open(path, String.class).verifyChecksum();
+        });
+
+        DirectedIntGraph intGraph = new DirectedIntGraph(3, new int[] {0, 1}, new int[] {1, 2}, new int[] {4, 5});
+        GraphFile.write(intGraph, path);
+        DirectedWeightedGraph<Integer> loaded = GraphFile.open(path, Integer.class).toGraph();
+        assertAll("Test dense int graph round trip",
+            () -> assertTrue(((DirectedIntGraph) loaded).hasDenseIds()),
+            () -> assertEquals(9, loaded.shortestPath(0, 2).getDistance())
+        );
+    }
+
+    @Test
+    @DisplayName("Algorithms on an off-heap store match the in-heap graph")
+    public void offHeapGraphStore() {
+        Random random = new Random(17);
+        int n = 300;
+        int[] from = new int[3000];
+        int[] to = new int[3000];
+        int[] weights = new int[3000];
+        for (int i = 0; i < from.length; i++) {
+            from[i] = random.nextInt(n);
+            to[i] = random.nextInt(n);
+            weights[i] = random.nextInt(50);
+        }
+        CsrGraph csr = new DirectedIntGraph(n, from, to, weights).getCsr();
+        OffHeapGraphStore offHeap = OffHeapGraphStore.copyOf(csr);
+        assertEquals(csr.getEdgeCount(), offHeap.getEdgeCount());
+        assertArrayEquals(GraphStores.shortestDistances(csr, 0, null), GraphStores.shortestDistances(offHeap, 0, null));
+        assertEquals(GraphStores.maxFlow(csr, 0, 1, MaxFlowAlgorithm.DINIC), GraphStores.maxFlow(offHeap, 0, 1, MaxFlowAlgorithm.DINIC));
+
+        // Graph = 0->2->{3,1}
+        OffHeapGraphStore.Builder builder = new OffHeapGraphStore.Builder(4, 3);
+        builder.addEdge(0, 2, 1);
+        builder.addEdge(2, 3, 1);
+        assertThrows(IllegalArgumentException.class, () -> {
+            builder.addEdge(1, 3, 1);
+        });
+        builder.addEdge(2, 1, 1);
+        OffHeapGraphStore dag = builder.build();
+        assertAll("Test store streamed in by source",
+            () -> assertEquals(0, dag.edgeOffset(1) - dag.edgeOffset(0) - 1),
+            () -> assertEquals(0, dag.edgeOffset(2) - dag.edgeOffset(1)),
+            () -> assertArrayEquals(new int[] {0, 2, 3, 1}, GraphStores.topologicalSort(dag))
+        );
+        QueryStats stats = new QueryStats();
+        GraphStores.topologicalSort(dag, stats);
+        assertEquals(4, stats.getVerticesSettled());
+        assertEquals(dag.getEdgeCount(), stats.getEdgesRelaxed());
+        QueryStats flowStats = new QueryStats();
+        assertEquals(GraphStores.maxFlow(csr, 0, 1, MaxFlowAlgorithm.DINIC),
+            GraphStores.maxFlow(offHeap, 0, 1, MaxFlowAlgorithm.DINIC, flowStats));
+        assertTrue(flowStats.getEdgesRelaxed() > 0);
+    }
+
+    @Test
+    @DisplayName("Topological order maintained while edges are inserted")
+    public void dynamicTopologicalOrder() {
+        DirectedStringGraph graph = new DirectedStringGraph();
+        graph.maintainTopologicalOrder();
+        Random random = new Random(11);
+        List<String[]> added = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String from = Integer.toString(random.nextInt(200));
+            String to = Integer.toString(random.nextInt(200));
+            try {
+                graph.addEdgeFastSetup(from, to, 1);
+                added.add(new String[] {from, to});
+            } catch (IllegalArgumentException e) {
+                // Rejected edge closes a cycle, so it must not have been added
+                assertFalse(graph.edgeExists(from, to));
+            }
+        }
+        List<String> order = graph.topologicalSort();
+        Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            position.put(order.get(i), i);
+        }
+        assertEquals(graph.getLength(), order.size());
+        for (String[] edge : added) {
+            assertTrue(position.get(edge[0]) < position.get(edge[1]));
+        }
+
+        String[] edge = added.get(0);
+        assertThrows(IllegalArgumentException.class, () -> {
+            graph.addEdgeFastSetup(edge[1], edge[0], 1);
+        });
+        assertFalse(graph.edgeExists(edge[1], edge[0]));
+    }
+
     @Test
     @DisplayName("Dijkstra on simple graph with 4 nodes")
     public void dijkstraAlgoSimple() {
@@ -123,6 +566,190 @@ public class DirectedStringGraphTest {
         });
     }
 
+    @Test
+    @DisplayName("Shortest path tree answers distance and path queries")
+    public void shortestPathTree() {
+        // Graph = 1->{2,3}->4->3, 5 unreachable
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        String[] fstEdge = {"1","2"};
+        String[] sndEdge = {"1","3"};
+        String[] thrdEdge = {"2","4"};
+        String[] frthEdge = {"3","4"};
+        String[] fifthEdge = {"4","3"};
+        String[] sixthEdge = {"5","1"};
+        edges.addAll(Arrays.asList(fstEdge, sndEdge, thrdEdge, frthEdge, fifthEdge, sixthEdge));
+        weights.addAll(Arrays.asList(1,100,1,1,3,1));
+        DirectedStringGraph graph = new DirectedStringGraph(edges, weights);
+        ShortestPathTree<String> tree = graph.shortestPathTree("1");
+        assertAll("Test expected distances/paths = actual distances/paths",
+            () -> assertEquals("1", tree.getSource()),
+            () -> assertEquals(0, tree.distanceTo("1")),
+            () -> assertEquals(2, tree.distanceTo("4")),
+            () -> assertEquals(5, tree.distanceTo("3")),
+            () -> assertEquals(ShortestPathTree.UNREACHABLE, tree.distanceTo("5")),
+            () -> assertFalse(tree.isReachable("5")),
+            () -> assertIterableEquals(Arrays.asList("1","2","4","3"), tree.pathTo("3")),
+            () -> assertIterableEquals(new ArrayList<String>(), tree.pathTo("5")),
+            () -> assertIterableEquals(Arrays.asList("1","2","3","4"), tree.reachable())
+        );
+        assertThrows(IllegalArgumentException.class, () -> {
+            tree.distanceTo("6");
+        });
+        DirectedWeightedGraph<String> treeGraph = tree.toGraph();
+        assertEquals(4, treeGraph.getLength());
+        assertFalse(treeGraph.nodeExists("5"));
+        assertEquals(3, treeGraph.getEdgeWeight("4", "3"));
+    }
+
+    @Test
+    @DisplayName("Bidirectional shortest path matches Dijkstra")
+    public void bidirectionalShortestPath() {
+        Random random = new Random(7);
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            String[] edge = {String.valueOf(random.nextInt(100)), String.valueOf(random.nextInt(100))};
+            edges.add(edge);
+            weights.add(random.nextInt(50));
+        }
+        DirectedStringGraph graph = new DirectedStringGraph(edges, weights);
+        for (int i = 0; i < 20; i++) {
+            String source = edges.get(random.nextInt(edges.size()))[0];
+            ShortestPathTree<String> tree = graph.shortestPathTree(source);
+            for (String target : graph.getVertexMap().keySet()) {
+                ShortestPath<String> path = graph.shortestPath(source, target);
+                assertEquals(tree.distanceTo(target), path.getDistance());
+                if (!path.isFound()) {
+                    assertTrue(path.getVertices().isEmpty());
+                    continue;
+                }
+                // Path must start at source, end at target and add up to its distance
+                List<String> vertices = path.getVertices();
+                assertEquals(source, vertices.get(0));
+                assertEquals(target, vertices.get(vertices.size() - 1));
+                long length = 0;
+                for (int j = 0; j + 1 < vertices.size(); j++) {
+                    length += graph.getEdgeWeight(vertices.get(j), vertices.get(j + 1));
+                }
+                assertEquals(path.getDistance(), length);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Contraction hierarchy queries match Dijkstra and are dropped on edit")
+    public void contractionHierarchyShortestPath() {
+        Random random = new Random(11);
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            String[] edge = {String.valueOf(random.nextInt(150)), String.valueOf(random.nextInt(150))};
+            edges.add(edge);
+            weights.add(random.nextInt(30));
+        }
+        DirectedStringGraph graph = new DirectedStringGraph(edges, weights);
+        graph.prepareContractionHierarchy();
+        assertTrue(graph.hasContractionHierarchy());
+        for (int i = 0; i < 20; i++) {
+            String source = edges.get(random.nextInt(edges.size()))[0];
+            ShortestPathTree<String> tree = graph.shortestPathTree(source);
+            for (String target : graph.getVertexMap().keySet()) {
+                ShortestPath<String> path = graph.shortestPath(source, target);
+                assertEquals(tree.distanceTo(target), path.getDistance());
+                if (!path.isFound()) {
+                    continue;
+                }
+                // Unpacked path must only use original edges
+                List<String> vertices = path.getVertices();
+                long length = 0;
+                for (int j = 0; j + 1 < vertices.size(); j++) {
+                    length += graph.getEdgeWeight(vertices.get(j), vertices.get(j + 1));
+                }
+                assertEquals(path.getDistance(), length);
+            }
+        }
+        graph.addEdgeFastSetup("0", "new", 1);
+        assertFalse(graph.hasContractionHierarchy());
+        assertEquals(graph.shortestPathTree("0").distanceTo("new"), graph.shortestPath("0", "new").getDistance());
+    }
+
+    @Test
+    @DisplayName("Multi-source and all pairs shortest paths match single source Dijkstra")
+    public void multiSourceShortestPaths() {
+        Random random = new Random(5);
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String[] edge = {String.valueOf(random.nextInt(80)), String.valueOf(random.nextInt(80))};
+            edges.add(edge);
+            weights.add(random.nextInt(40));
+        }
+        DirectedStringGraph graph = new DirectedStringGraph(edges, weights);
+        List<String> sources = new ArrayList<>(graph.getVertexMap().keySet());
+        Map<String, ShortestPathTree<String>> trees = new ConcurrentHashMap<>();
+        graph.shortestPathTrees(sources, tree -> trees.put(tree.getSource(), tree));
+        assertEquals(sources.size(), trees.size());
+
+        long[][] allPairs = graph.allPairsDistances();
+        for (String source : sources) {
+            ShortestPathTree<String> expected = graph.shortestPathTree(source);
+            for (String target : sources) {
+                assertEquals(expected.distanceTo(target), trees.get(source).distanceTo(target));
+                assertEquals(expected.distanceTo(target), allPairs[graph.getVertexMap().get(source)][graph.getVertexMap().get(target)]);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Delta-stepping gives same distances as Dijkstra")
+    public void deltaSteppingMatchesDijkstra() {
+        Random random = new Random(9);
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            String[] edge = {String.valueOf(random.nextInt(3000)), String.valueOf(random.nextInt(3000))};
+            edges.add(edge);
+            // Mix of zero, light and heavy edges
+            weights.add(random.nextInt(10) == 0 ? 0 : random.nextInt(1000));
+        }
+        DirectedStringGraph graph = new DirectedStringGraph(edges, weights);
+        for (int i = 0; i < 5; i++) {
+            String source = edges.get(random.nextInt(edges.size()))[0];
+            ShortestPathTree<String> expected = graph.shortestPathTree(source);
+            ShortestPathTree<String> actual = graph.shortestPathTree(source, ShortestPathEngine.DELTA_STEPPING);
+            assertArrayEquals(expected.getDistances(), actual.getDistances());
+            for (String target : actual.reachable()) {
+                // Parent edges must form a shortest path back to source
+                List<String> path = actual.pathTo(target);
+                assertEquals(source, path.get(0));
+                long length = 0;
+                for (int j = 0; j + 1 < path.size(); j++) {
+                    length += graph.getEdgeWeight(path.get(j), path.get(j + 1));
+                }
+                assertEquals(actual.distanceTo(target), length);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Dijkstra with path lengths larger than an int")
+    public void dijkstraLargeWeights() {
+        // Graph = 1->2->3 (2e9 + 2e9) and 1->4->3 (1 + 2.1e9)
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        String[] fstEdge = {"1","2"};
+        String[] sndEdge = {"2","3"};
+        String[] thrdEdge = {"1","4"};
+        String[] frthEdge = {"4","3"};
+        edges.addAll(Arrays.asList(fstEdge, sndEdge, thrdEdge, frthEdge));
+        weights.addAll(Arrays.asList(2_000_000_000, 2_000_000_000, 1, 2_100_000_000));
+        DirectedStringGraph graph = new DirectedStringGraph(edges, weights);
+        DirectedStringGraph dijkstraGraph = (DirectedStringGraph) graph.dijkstra("1");
+        assertEquals(2_100_000_000, dijkstraGraph.getEdgeWeight("4", "3"));
+        assertFalse(dijkstraGraph.edgeExists("2", "3"));
+    }
+
     @Test
     @DisplayName("Simple Ford-Fulkerson where bottleneck edge is final edge")
     public void fordFulkersonSimpleOnePath() {
@@ -177,4 +804,327 @@ public class DirectedStringGraphTest {
         int result = graph.fordFulkersonMaxFlow("1", "4");
         assertEquals(16, result);
     }
+
+    @Test
+    @DisplayName("Dinic max flow matches Ford-Fulkerson")
+    public void dinicMatchesFordFulkerson() {
+        // Same graph as fordFulkersonMultiplePath, plus a back edge 4->1 and a self loop on 2
+        List<String[]> edges = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        String[] fstEdge = {"1","2"};
+        String[] sndEdge = {"1","3"};
+        String[] thrdEdge = {"2","4"};
+        String[] frthEdge = {"3","4"};
+        String[] linkEdge = {"3","2"};
+        String[] backEdge = {"4","1"};
+        String[] selfEdge = {"2","2"};
+        edges.addAll(Arrays.asList(fstEdge, sndEdge, thrdEdge, frthEdge, linkEdge, backEdge, selfEdge));
+        weights.addAll(Arrays.asList(2,14,30,10,5,7,9));
+        DirectedStringGraph graph = new DirectedStringGraph(edges, weights);
+        assertAll("Test Dinic max flow = Ford-Fulkerson max flow",
+            () -> assertEquals(16, graph.maxFlow("1", "4", MaxFlowAlgorithm.DINIC)),
+            () -> assertEquals(16, graph.fordFulkersonMaxFlow("1", "4")),
+            () -> assertEquals(7, graph.maxFlow("4", "3", MaxFlowAlgorithm.DINIC)),
+            () -> assertEquals(7, graph.fordFulkersonMaxFlow("4", "3")),
+            () -> assertEquals(7, graph.maxFlow("2", "3", MaxFlowAlgorithm.DINIC))
+        );
+
+        // Random sparse graphs
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            List<String[]> randomEdges = new ArrayList<>();
+            List<Integer> randomWeights = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                String[] edge = {String.valueOf(random.nextInt(15)), String.valueOf(random.nextInt(15))};
+                randomEdges.add(edge);
+                randomWeights.add(random.nextInt(20));
+            }
+            DirectedStringGraph randomGraph = new DirectedStringGraph(randomEdges, randomWeights);
+            String source = randomEdges.get(0)[0];
+            String sink = randomEdges.get(1)[1];
+            if (source.equals(sink)) {
+                continue;
+            }
+            assertEquals(randomGraph.fordFulkersonMaxFlow(source, sink), randomGraph.maxFlow(source, sink, MaxFlowAlgorithm.DINIC));
+        }
+    }
+
+    @Test
+    @DisplayName("Generated graphs are deterministic and have the expected shape")
+    public void graphGenerators() {
+        GraphGenerator rmat = GraphGenerator.rmat(10, 8, 7);
+        CsrGraph first = rmat.toIntGraph().getCsr();
+        CsrGraph second = GraphGenerator.rmat(10, 8, 7).toIntGraph().getCsr();
+        long[] streamed = new long[1];
+        rmat.forEachEdge((from, to, weight) -> streamed[0]++);
+
+        DirectedStringGraph grid = GraphGenerator.grid(3, 4, 1).toStringGraph();
+        GraphGenerator dag = GraphGenerator.layeredDag(20, 50, 3, 2);
+        GraphGenerator network = GraphGenerator.flowNetwork(10, 30, 4, 3);
+        DirectedIntGraph flowGraph = network.toIntGraph();
+        int flow = flowGraph.fordFulkersonMaxFlow(network.getSource(), network.getSink());
+        assertAll("Test generators",
+            () -> assertEquals(1024, first.getVertexNum()),
+            () -> assertEquals(8 * 1024, streamed[0]),
+            () -> assertTrue(first.getEdgeNum() <= 8 * 1024),
+            () -> assertArrayEquals(first.targets, second.targets),
+            () -> assertArrayEquals(first.weights, second.weights),
+            () -> assertEquals(12, grid.getLength()),
+            () -> assertEquals(34, grid.getCsr().getEdgeNum()),
+            () -> assertTrue(grid.edgeExists("5", "6") && grid.edgeExists("6", "5") && grid.edgeExists("5", "9")),
+            () -> assertEquals(1000, dag.toIntGraph().topologicalSortIds().length),
+            () -> assertEquals(302, flowGraph.getLength()),
+            () -> assertTrue(flow > 0),
+            () -> assertEquals(flow, flowGraph.maxFlow(network.getSource(), network.getSink(), MaxFlowAlgorithm.DINIC))
+        );
+    }
+
+    @Test
+    @DisplayName("Measured queries return their result with stats")
+    public void measuredQueries() {
+        // Graph = 1->{2,3}->4, 3->2
+        List<String[]> edges = new ArrayList<>();
+        edges.addAll(Arrays.asList(new String[] {"1","2"}, new String[] {"1","3"}, new String[] {"2","4"}, new String[] {"3","4"}, new String[] {"3","2"}));
+        List<Integer> weights = new ArrayList<>(Arrays.asList(2, 14, 30, 10, 5));
+        DirectedStringGraph graph = new DirectedStringGraph(edges, weights);
+
+        Measured<Long> distance = graph.measure(g -> g.shortestPathTree("1").distanceTo("4"));
+        Measured<Integer> flow = graph.measure(g -> g.fordFulkersonMaxFlow("1", "4"));
+        Measured<List<String>> order = graph.measure(GraphMethods::topologicalSort);
+        QueryStats both = graph.measure(g -> {
+            g.shortestPathTree("1");
+            g.maxFlow("1", "4", MaxFlowAlgorithm.DINIC);
+            return null;
+        }).getStats();
+        assertAll("Test measured queries",
+            () -> assertEquals(24, distance.getResult()),
+            () -> assertEquals(4, distance.getStats().getVerticesSettled()),
+            () -> assertEquals(5, distance.getStats().getEdgesRelaxed()),
+            () -> assertEquals(4, distance.getStats().getHeapPops()),
+            () -> assertTrue(distance.getStats().getPeakScratchBytes() > 0),
+            () -> assertTrue(distance.getStats().getWallTimeNanos() > 0),
+            () -> assertEquals(graph.fordFulkersonMaxFlow("1", "4"), flow.getResult()),
+            () -> assertEquals(3, flow.getStats().getAugmentingPaths()),
+            () -> assertEquals(4, flow.getStats().getBfsPasses()),
+            () -> assertEquals(Arrays.asList("1", "3", "2", "4"), order.getResult()),
+            () -> assertEquals(4, order.getStats().getVerticesSettled()),
+            () -> assertEquals(0, order.getStats().getAugmentingPaths()),
+            () -> assertEquals(4, both.getHeapPops()),
+            () -> assertTrue(both.getBfsPasses() > 0),
+            () -> assertFalse(QueryStats.DISABLED.isEnabled())
+        );
+    }
+
+    @Test
+    @DisplayName("Builds, queries and snapshots are recorded as JFR events")
+    public void flightRecorderEvents() throws IOException {
+        Path file = Files.createTempFile("graph", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("graph.gui.GraphBuild");
+            recording.enable("graph.gui.GraphQuery");
+            recording.enable("graph.gui.GraphSnapshot");
+            recording.start();
+            GraphGenerator generator = GraphGenerator.layeredDag(3, 4, 2, 7);
+            DirectedStringGraph graph = generator.toStringGraph();
+            graph.topologicalSort();
+            graph.shortestPathTree("0");
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            Map<String, List<RecordedEvent>> byType = events.stream()
+                .filter(e -> e.getEventType().getName().startsWith("graph.gui."))
+                .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+            RecordedEvent build = byType.get("graph.gui.GraphBuild").get(0);
+            RecordedEvent freeze = byType.get("graph.gui.GraphSnapshot").get(0);
+            List<String> algorithms = byType.get("graph.gui.GraphQuery").stream()
+                .map(e -> e.getString("algorithm")).collect(Collectors.toList());
+            RecordedEvent tree = byType.get("graph.gui.GraphQuery").get(1);
+            assertAll("Test flight recorder events",
+                () -> assertEquals("layered DAG generator", build.getString("builder")),
+                () -> assertEquals(12, build.getLong("vertexCount")),
+                () -> assertEquals("freeze", freeze.getString("operation")),
+                () -> assertEquals(1, byType.get("graph.gui.GraphSnapshot").size()),
+                () -> assertEquals(Arrays.asList("TOPOLOGICAL_SORT", "DIJKSTRA"), algorithms),
+                () -> assertEquals("0", tree.getString("source")),
+                () -> assertEquals(graph.freeze().getCsr().getEdgeNum(), tree.getLong("edgeCount"))
+            );
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Queries report progress and stop once cancelled")
+    public void queryProgressAndCancellation() {
+        DirectedIntGraph grid = GraphGenerator.grid(60, 60, 3).toIntGraph();
+        QueryProgress treeProgress = new QueryProgress();
+        long reachable = grid.measure(g -> g.shortestPathTree(0), treeProgress).getResult().reachableCount();
+        DirectedIntGraph network = GraphGenerator.flowNetwork(6, 8, 3, 5).toIntGraph();
+        QueryProgress flowProgress = new QueryProgress();
+        int flow = network.measure(g -> g.fordFulkersonMaxFlow(0, network.getLength() - 1), flowProgress).getResult();
+        QueryProgress cancelled = new QueryProgress();
+        cancelled.cancel();
+        assertAll("Test query progress and cancellation",
+            () -> assertEquals(3600, reachable),
+            () -> assertEquals(3600, treeProgress.getWorkExpected()),
+            () -> assertEquals(3600, treeProgress.getWorkDone()),
+            () -> assertEquals(1.0, treeProgress.getFraction()),
+            () -> assertEquals(flow, flowProgress.getWorkDone()),
+            () -> assertTrue(flowProgress.getWorkExpected() >= flow),
+            () -> assertThrows(CancellationException.class, () -> grid.measure(g -> g.shortestPathTree(0), cancelled)),
+            () -> assertThrows(CancellationException.class, () -> network.measure(g -> g.maxFlow(0, network.getLength() - 1, MaxFlowAlgorithm.DINIC), cancelled)),
+            () -> assertThrows(CancellationException.class, () -> grid.measure(GraphMethods::topologicalSort, cancelled)),
+            () -> assertEquals(0, cancelled.getWorkDone())
+        );
+    }
+
+    @Test
+    @DisplayName("Barnes-Hut layout settles edges near their natural length")
+    public void barnesHutLayout() {
+        // Two connected vertices settle where pull d^2 / k balances push k^2 / d, i.e. d = k = sqrt(area / V)
+        BarnesHutLayout pair = new BarnesHutLayout(2, new int[] {0}, new int[] {1}, 400, 400, 700, 1);
+        while (!pair.done()) {
+            pair.step();
+        }
+        double pairDistance = Math.hypot(pair.getX(0) - pair.getX(1), pair.getY(0) - pair.getY(1));
+
+        // Ring of 200 vertices, every neighbour pair should end up far closer than the ring is wide
+        int n = 200;
+        int[] from = new int[n];
+        int[] to = new int[n];
+        for (int v = 0; v < n; v++) {
+            from[v] = v;
+            to[v] = (v + 1) % n;
+        }
+        BarnesHutLayout ring = new BarnesHutLayout(n, from, to, 1000, 1000, 300, 2);
+        while (!ring.done()) {
+            ring.step();
+        }
+        double longestEdge = 0;
+        double widest = 0;
+        boolean inside = true;
+        for (int v = 0; v < n; v++) {
+            longestEdge = Math.max(longestEdge, Math.hypot(ring.getX(v) - ring.getX(to[v]), ring.getY(v) - ring.getY(to[v])));
+            widest = Math.max(widest, Math.hypot(ring.getX(v) - ring.getX(n / 2), ring.getY(v) - ring.getY(n / 2)));
+            inside &= ring.getX(v) >= 0 && ring.getX(v) <= 1000 && ring.getY(v) >= 0 && ring.getY(v) <= 1000;
+        }
+        double ringLongestEdge = longestEdge;
+        double ringWidth = widest;
+        boolean ringInside = inside;
+        assertAll("Test Barnes-Hut layout",
+            () -> assertEquals(Math.sqrt(400 * 400 / 2.0), pairDistance, 5),
+            () -> assertTrue(ringInside),
+            () -> assertTrue(ringLongestEdge * 5 < ringWidth, ringLongestEdge + " vs " + ringWidth),
+            () -> assertEquals(700, pair.getIteration())
+        );
+    }
+
+    @Test
+    @DisplayName("Graph table reads edge lists and builds the graph straight from its rows")
+    public void graphTableModel() throws IOException {
+        GraphTableModel table = GraphTableModel.parseEdgeList(new StringReader(
+            "# a -> b -> c, plus a lone d\n"
+            + "a b 3\n"
+            + "\n"
+            + "b,c\n"
+            + "a\tb\t7\n"
+            + "d\n"));
+        table.addRow("c", "a", 2);
+        DirectedStringGraph graph = table.toGraph();
+        Map<String, Integer> expectedIds = new HashMap<>();
+        expectedIds.put("a", 0);
+        expectedIds.put("b", 1);
+        expectedIds.put("c", 2);
+        expectedIds.put("d", 3);
+        String copied = table.toEdgeList(new int[] {0, 3});
+        table.removeRows(new int[] {4, 1});
+        GraphTableModel blank = new GraphTableModel();
+        blank.addRow(" ", "a", 1);
+        assertAll("Test graph table model",
+            () -> assertEquals(expectedIds, graph.getVertexMap()),
+            // Duplicate a -> b keeps its first weight, as the list constructors do
+            () -> assertEquals(1, graph.getAdjList().get(0).size()),
+            () -> assertEquals(3, graph.getAdjList().get(0).get(0).getWeight()),
+            () -> assertEquals(GraphTableModel.DEFAULT_WEIGHT, graph.getAdjList().get(1).get(0).getWeight()),
+            () -> assertEquals(0, graph.getAdjList().get(3).size()),
+            () -> assertEquals("a\tb\t3\nd\n", copied),
+            () -> assertEquals(3, table.getRowCount()),
+            () -> assertEquals("d", table.getValueAt(2, GraphTableModel.NODE_COLUMN)),
+            () -> assertThrows(IllegalArgumentException.class, blank::toGraph),
+            () -> assertThrows(IllegalArgumentException.class, () -> GraphTableModel.parseEdgeList(new StringReader("a b x"))),
+            () -> assertThrows(IllegalArgumentException.class, () -> GraphTableModel.parseEdgeList(new StringReader("a b 1 2")))
+        );
+    }
+
+    @Test
+    @DisplayName("Graph diff turns the shown JUNG graph into the edited one, and layouts carry on from old positions")
+    public void incrementalGraphUpdate() throws IOException {
+        DirectedStringGraph before = GraphTableModel.parseEdgeList(new StringReader("a b 1\na c 2\nb c 3\nc d 4\nd\n")).toGraph();
+        // Weight of a -> c changed, b -> c removed, c -> d removed with d, e and c -> e added
+        DirectedStringGraph after = GraphTableModel.parseEdgeList(new StringReader("a b 1\na c 5\nb\nc e 6\n")).toGraph();
+        Graph<String, MyEdge> shown = new DirectedSparseGraph<>();
+        for (String vertex : before.getVertexMap().keySet()) {
+            shown.addVertex(vertex);
+        }
+        CsrGraph csr = before.getCsr();
+        for (int v = 0; v < csr.getVertexNum(); v++) {
+            for (int e = csr.edgeStart(v); e < csr.edgeEnd(v); e++) {
+                shown.addEdge(new MyEdge(csr.target(e), csr.weight(e)), before.nameOf(v), before.nameOf(csr.target(e)));
+            }
+        }
+        MyEdge unchanged = shown.findEdge("a", "b");
+        GraphDiff<String> diff = GraphDiff.between(before, after);
+        diff.applyTo(shown);
+        Map<String, Integer> shownEdges = new HashMap<>();
+        for (MyEdge edge : shown.getEdges()) {
+            shownEdges.put(shown.getSource(edge) + "->" + shown.getDest(edge), edge.getWeight());
+        }
+        Map<String, Integer> expectedEdges = new HashMap<>();
+        expectedEdges.put("a->b", 1);
+        expectedEdges.put("a->c", 5);
+        expectedEdges.put("c->e", 6);
+
+        // Known vertices of a ring start where they were and barely move, the new vertex lands next to its neighbours
+        int n = 50;
+        int[] from = new int[n];
+        int[] to = new int[n];
+        for (int v = 0; v < n; v++) {
+            from[v] = v;
+            to[v] = (v + 1) % n;
+        }
+        BarnesHutLayout settled = new BarnesHutLayout(n, from, to, 500, 500, 300, 3);
+        while (!settled.done()) {
+            settled.step();
+        }
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        settled.copyPositions(xs, ys);
+        xs[0] = Double.NaN;
+        ys[0] = Double.NaN;
+        BarnesHutLayout resumed = new BarnesHutLayout(n, from, to, 500, 500, 300, 4);
+        resumed.startFrom(xs, ys, 270);
+        double startGap = Math.hypot(resumed.getX(0) - (xs[1] + xs[n - 1]) / 2, resumed.getY(0) - (ys[1] + ys[n - 1]) / 2);
+        while (!resumed.done()) {
+            resumed.step();
+        }
+        double furthestMove = 0;
+        for (int v = 1; v < n; v++) {
+            furthestMove = Math.max(furthestMove, Math.hypot(resumed.getX(v) - xs[v], resumed.getY(v) - ys[v]));
+        }
+        double resumedFurthestMove = furthestMove;
+        assertAll("Test incremental graph update",
+            () -> assertEquals(Arrays.asList("e"), diff.getAddedVertices()),
+            () -> assertEquals(Arrays.asList("d"), diff.getRemovedVertices()),
+            () -> assertEquals(2, diff.getRemovedEdgeCount()),
+            () -> assertEquals(2, diff.getAddedEdgeCount()),
+            () -> assertEquals(after.getVertexMap().keySet(), new HashSet<>(shown.getVertices())),
+            () -> assertEquals(expectedEdges, shownEdges),
+            () -> assertSame(unchanged, shown.findEdge("a", "b")),
+            () -> assertTrue(GraphDiff.between(after, after).isEmpty()),
+            () -> assertTrue(startGap < 50, "new vertex placed " + startGap + " from its neighbours"),
+            () -> assertTrue(resumedFurthestMove < 50, "known vertex moved " + resumedFurthestMove),
+            () -> assertEquals(300, resumed.getIteration())
+        );
+    }
 }
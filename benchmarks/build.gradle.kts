@@ -0,0 +1,44 @@
+/*
+ * JMH benchmarks for graph construction and the GraphMethods algorithms.
+ *
+ * Run with './gradlew :benchmarks:jmh'. Results are written as JSON to 'benchmarks/build/results/jmh/results.json',
+ * so runs from different releases can be diffed. Pass e.g. '-PjmhIncludes=Dijkstra' to run only matching benchmarks.
+ */
+
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    // Benchmarks live in package graph.gui to reach the package-private graph classes
+    jmh(project(":app"))
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    benchmarkMode = listOf("thrpt", "avgt")
+    timeUnit = "ms"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    // Adds allocation rate (gc.alloc.rate, gc.alloc.rate.norm) to every result
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    // The app jar already bundles its dependencies
+    duplicateClassesStrategy = DuplicatesStrategy.EXCLUDE
+    if (project.hasProperty("jmhIncludes")) {
+        includes = listOf(project.property("jmhIncludes").toString())
+    }
+}
@@ -0,0 +1,90 @@
+package graph.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/* Every GraphMethods algorithm on the same seeded graphs (see BenchmarkGraphs). Graphs are built and frozen in
+ *  setup, so only the algorithm itself is measured. Shortest paths run on an R-MAT graph and topological sort on
+ *  a layered DAG of about the same size. Max flow and all pairs distances don't scale to the same sizes, so they
+ *  are in MaxFlowBenchmark and AllPairsBenchmark instead.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AlgorithmBenchmark {
+    // Sources used by the multi-source benchmark
+    private static final int SOURCE_NUM = 8;
+
+    // About 2^scale vertices
+    @Param({"10", "17"})
+    public int scale;
+
+    // Edges per vertex
+    @Param({"2", "16"})
+    public int edgeFactor;
+
+    private DirectedStringGraph graph;
+    private DirectedStringGraph dag;
+    private String source;
+    private String target;
+    private List<String> sources;
+
+    @Setup
+    public void setUp() {
+        GraphGenerator rmat = GraphGenerator.rmat(scale, edgeFactor, BenchmarkGraphs.SEED);
+        graph = BenchmarkGraphs.frozen(rmat);
+        dag = BenchmarkGraphs.frozen(BenchmarkGraphs.layeredDag(scale, edgeFactor));
+        source = GraphGenerator.nameOf(rmat.getSource());
+        target = GraphGenerator.nameOf(rmat.getSink());
+        sources = new ArrayList<>();
+        for (int i = 0; i < SOURCE_NUM; i++) {
+            sources.add(GraphGenerator.nameOf(i * (rmat.getVertexNum() / SOURCE_NUM)));
+        }
+    }
+
+    @Benchmark
+    public List<String> topologicalSort() {
+        return dag.topologicalSort();
+    }
+
+    @Benchmark
+    public TopologicalOrder<String> topologicalOrderParallel() {
+        return dag.topologicalOrder(true);
+    }
+
+    // Includes building the result graph
+    @Benchmark
+    public DirectedWeightedGraph<String> dijkstra() {
+        return graph.dijkstra(source);
+    }
+
+    @Benchmark
+    public ShortestPathTree<String> shortestPathTree() {
+        return graph.shortestPathTree(source, ShortestPathEngine.DIJKSTRA);
+    }
+
+    @Benchmark
+    public ShortestPathTree<String> shortestPathTreeDeltaStepping() {
+        return graph.shortestPathTree(source, ShortestPathEngine.DELTA_STEPPING);
+    }
+
+    @Benchmark
+    public long shortestPathTrees() {
+        LongAdder done = new LongAdder();
+        graph.shortestPathTrees(sources, tree -> done.increment());
+        return done.sum();
+    }
+
+    @Benchmark
+    public ShortestPath<String> shortestPath() {
+        return graph.shortestPath(source, target);
+    }
+}
@@ -0,0 +1,35 @@
+package graph.gui;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// All pairs distances, on graphs small enough for its V x V result
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AllPairsBenchmark {
+    // 2^scale vertices
+    @Param({"8", "11"})
+    public int scale;
+
+    // Edges per vertex
+    @Param({"2", "16"})
+    public int edgeFactor;
+
+    private DirectedStringGraph graph;
+
+    @Setup
+    public void setUp() {
+        graph = BenchmarkGraphs.frozen(GraphGenerator.rmat(scale, edgeFactor, BenchmarkGraphs.SEED));
+    }
+
+    @Benchmark
+    public long[][] allPairsDistances() {
+        return graph.allPairsDistances();
+    }
+}
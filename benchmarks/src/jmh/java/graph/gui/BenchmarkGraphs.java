@@ -0,0 +1,26 @@
+package graph.gui;
+
+// Seeded graphs shared by the benchmarks, so every run and every benchmark sees the same graphs
+final class BenchmarkGraphs {
+    static final long SEED = 42;
+
+    private BenchmarkGraphs() {
+    }
+
+    // DAG of about 2^scale vertices in about 2^(scale / 2) layers
+    static GraphGenerator layeredDag(int scale, int degree) {
+        return GraphGenerator.layeredDag(1 << (scale / 2), 1 << (scale - scale / 2), degree, SEED);
+    }
+
+    // Flow network of about 2^scale vertices in about 2^(scale / 2) layers
+    static GraphGenerator flowNetwork(int scale, int degree) {
+        return GraphGenerator.flowNetwork(1 << (scale / 2), 1 << (scale - scale / 2), degree, SEED);
+    }
+
+    // String graph of generator, already frozen so benchmarks don't pay for the first snapshot
+    static DirectedStringGraph frozen(GraphGenerator generator) {
+        DirectedStringGraph graph = generator.toStringGraph();
+        graph.freeze();
+        return graph;
+    }
+}
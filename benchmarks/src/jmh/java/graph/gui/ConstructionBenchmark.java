@@ -0,0 +1,99 @@
+package graph.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/* Building a graph from an R-MAT edge list, through each way the app offers. Every benchmark ends with freeze(),
+ *  so the CSR arrays algorithms run on are included in the cost.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConstructionBenchmark {
+    // 2^scale vertices
+    @Param({"10", "17"})
+    public int scale;
+
+    // Edges per vertex
+    @Param({"2", "16"})
+    public int edgeFactor;
+
+    private GraphGenerator generator;
+    private int vertexNum;
+    private int[] from;
+    private int[] to;
+    private int[] weights;
+    private String[] names;
+    private List<String[]> edgeList;
+    private List<Integer> weightList;
+
+    @Setup
+    public void setUp() {
+        generator = GraphGenerator.rmat(scale, edgeFactor, BenchmarkGraphs.SEED);
+        vertexNum = generator.getVertexNum();
+        int edgeNum = (int) generator.getEdgeNum();
+        from = new int[edgeNum];
+        to = new int[edgeNum];
+        weights = new int[edgeNum];
+        int[] next = new int[1];
+        generator.forEachEdge((edgeFrom, edgeTo, weight) -> {
+            from[next[0]] = edgeFrom;
+            to[next[0]] = edgeTo;
+            weights[next[0]] = weight;
+            next[0]++;
+        });
+        names = new String[vertexNum];
+        for (int v = 0; v < vertexNum; v++) {
+            names[v] = GraphGenerator.nameOf(v);
+        }
+        edgeList = new ArrayList<>(edgeNum);
+        weightList = new ArrayList<>(edgeNum);
+        for (int e = 0; e < edgeNum; e++) {
+            edgeList.add(new String[] {names[from[e]], names[to[e]]});
+            weightList.add(weights[e]);
+        }
+    }
+
+    // Constructor the GUI builds graphs with
+    @Benchmark
+    public GraphSnapshot<String> stringGraphFromLists() {
+        return new DirectedStringGraph(edgeList, weightList).freeze();
+    }
+
+    @Benchmark
+    public GraphSnapshot<String> stringGraphAddEdges() {
+        DirectedStringGraph graph = new DirectedStringGraph();
+        for (int e = 0; e < from.length; e++) {
+            graph.addEdgeFastSetup(names[from[e]], names[to[e]], weights[e]);
+        }
+        return graph.freeze();
+    }
+
+    @Benchmark
+    public GraphSnapshot<Integer> intGraphFromArrays() {
+        return new DirectedIntGraph(vertexNum, from, to, weights).freeze();
+    }
+
+    // Edges go from the generator straight into CSR arrays, without the edge arrays above
+    @Benchmark
+    public GraphSnapshot<Integer> intGraphFromGenerator() {
+        return generator.toIntGraph().freeze();
+    }
+
+    @Benchmark
+    public GraphSnapshot<String> concurrentBuilder() {
+        ConcurrentGraphBuilder<String> builder = ConcurrentGraphBuilder.forStrings();
+        ConcurrentGraphBuilder<String>.Feeder feeder = builder.feeder();
+        for (int e = 0; e < from.length; e++) {
+            feeder.addEdge(names[from[e]], names[to[e]], weights[e]);
+        }
+        return builder.build();
+    }
+}
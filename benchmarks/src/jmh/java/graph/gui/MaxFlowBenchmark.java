@@ -0,0 +1,46 @@
+package graph.gui;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Max flow from source to sink of a layered flow network. Kept smaller than AlgorithmBenchmark's graphs, as
+// Ford-Fulkerson needs one BFS per augmenting path
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MaxFlowBenchmark {
+    // About 2^scale vertices
+    @Param({"8", "12"})
+    public int scale;
+
+    // Edges per vertex
+    @Param({"2", "16"})
+    public int edgeFactor;
+
+    private DirectedStringGraph network;
+    private String source;
+    private String sink;
+
+    @Setup
+    public void setUp() {
+        GraphGenerator flow = BenchmarkGraphs.flowNetwork(scale, edgeFactor);
+        network = BenchmarkGraphs.frozen(flow);
+        source = GraphGenerator.nameOf(flow.getSource());
+        sink = GraphGenerator.nameOf(flow.getSink());
+    }
+
+    @Benchmark
+    public int fordFulkersonMaxFlow() {
+        return network.fordFulkersonMaxFlow(source, sink);
+    }
+
+    @Benchmark
+    public int dinicMaxFlow() {
+        return network.maxFlow(source, sink, MaxFlowAlgorithm.DINIC);
+    }
+}
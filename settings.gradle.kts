@@ -12,3 +12,4 @@ plugins {
 
 rootProject.name = "graph-gui"
 include("app")
+include("benchmarks")